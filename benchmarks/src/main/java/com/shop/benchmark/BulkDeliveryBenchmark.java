@@ -0,0 +1,71 @@
+package com.shop.benchmark;
+
+import com.shop.model.Batch;
+import com.shop.model.BulkDelivery;
+import com.shop.model.Shop;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stocks a delivery of {@code lines} batches spread over {@code products} products and
+ * {@code dates} arrival dates into an empty shop, once line by line and once in bulk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkDeliveryBenchmark {
+
+    @Param({"100000"})
+    public int lines;
+
+    @Param({"100", "10000"})
+    public int products;
+
+    @Param({"30"})
+    public int dates;
+
+    private BulkDelivery delivery;
+    private ShopServiceImpl shopServiceImpl;
+    private Shop shop;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDate today = LocalDate.now();
+        delivery = new BulkDelivery();
+        for (int line = 0; line < lines; line++) {
+            delivery.getProducts().computeIfAbsent("P" + line % products, k -> new ArrayList<>())
+                    .add(new Batch(today.minusDays(line * 7L % dates), 1 + line % 20));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyShop() {
+        shopServiceImpl = new ShopServiceImpl();
+        shop = new Shop();
+    }
+
+    @Benchmark
+    public Shop addProductPerLine() {
+        for (Map.Entry<String, List<Batch>> entry : delivery.getProducts().entrySet()) {
+            for (Batch batch : entry.getValue()) {
+                shopServiceImpl.addProduct(shop, entry.getKey(), batch.getQuantity(), batch.getArrivalDate());
+            }
+        }
+        return shop;
+    }
+
+    @Benchmark
+    public Shop processBulkDelivery() {
+        shopServiceImpl.processBulkDelivery(shop, delivery);
+        return shop;
+    }
+}
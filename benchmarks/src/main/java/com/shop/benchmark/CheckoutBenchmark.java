@@ -0,0 +1,78 @@
+package com.shop.benchmark;
+
+import com.shop.model.ProductCatalog;
+import com.shop.model.Receipt;
+import com.shop.service.CashierDeskServiceImpl;
+import com.shop.service.ReceiptStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark extends ShopFixture {
+    private CashierDeskServiceImpl stubbedReceipts;
+    private CashierDeskServiceImpl fileReceipts;
+    private ReceiptStore receiptStore;
+    private Path receiptDirectory;
+
+    @Override
+    protected void setUp() {
+        stubbedReceipts = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(Path.of("unused")) {
+            @Override
+            public void save(Receipt receipt) {
+            }
+
+            @Override
+            public void saveAsText(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void openReceiptStore() throws IOException {
+        receiptDirectory = Files.createTempDirectory("receipts-benchmark");
+        receiptStore = new ReceiptStore(receiptDirectory);
+        fileReceipts = new CashierDeskServiceImpl(shopServiceImpl, receiptStore);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteReceipts() throws IOException {
+        receiptStore.close();
+        try (Stream<Path> paths = Files.walk(receiptDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public BigDecimal getTotalBasketPrice() {
+        return stubbedReceipts.getTotalBasketPrice(shop, productCatalog, customer.getBasket());
+    }
+
+    @Benchmark
+    public void processPurchaseStubbedReceipts() {
+        stubbedReceipts.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+    }
+
+    @Benchmark
+    public void processPurchaseWithReceiptFiles() {
+        fileReceipts.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+    }
+}
@@ -0,0 +1,109 @@
+package com.shop.benchmark;
+
+import com.shop.model.*;
+import com.shop.service.CashierDeskServiceImpl;
+import com.shop.service.CheckoutExecutor;
+import com.shop.service.CustomerServiceImpl;
+import com.shop.service.ReceiptStore;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Checks out {@code customers} customers at one desk with receipts written to files, once with
+ * the sequential {@code processPurchaseForAllCustomers} and once on virtual threads with at
+ * most {@code maxConcurrentCheckouts} checkouts running at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutExecutorBenchmark {
+
+    @Param({"1000"})
+    public int customers;
+
+    @Param({"10"})
+    public int basketSize;
+
+    @Param({"16", "256"})
+    public int maxConcurrentCheckouts;
+
+    private ProductCatalog productCatalog;
+    private Shop shop;
+    private CashierDesk cashierDesk;
+    private List<Customer> queue;
+    private Path receiptDirectory;
+    private ReceiptStore receiptStore;
+    private CashierDeskServiceImpl cashierDeskServiceImpl;
+    private CheckoutExecutor checkoutExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        LocalDate today = DateWrapper.currentDate();
+        productCatalog = new ProductCatalog();
+        shop = new Shop();
+        shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        for (int i = 0; i < basketSize; i++) {
+            String productId = "P" + i;
+            productCatalog.getProductCatalog().put(productId,
+                    new NonPerishableProduct(productId, "Product " + i, BigDecimal.valueOf(99 + i, 2), Category.FOOD));
+            shopServiceImpl.addProduct(shop, productId, Integer.MAX_VALUE / 2, today);
+        }
+        cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C001", "Benchmark", BigDecimal.valueOf(2000)));
+
+        CustomerServiceImpl customerServiceImpl = new CustomerServiceImpl();
+        queue = new ArrayList<>(customers);
+        for (int c = 0; c < customers; c++) {
+            Customer customer = new Customer();
+            customer.setBudget(BigDecimal.valueOf(Long.MAX_VALUE));
+            for (int i = 0; i < basketSize; i++) {
+                customerServiceImpl.addProductToBasket(customer, shop, "P" + i, 1, shopServiceImpl);
+            }
+            queue.add(customer);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void openReceiptStore() throws IOException {
+        receiptDirectory = Files.createTempDirectory("checkout-executor-benchmark");
+        receiptStore = new ReceiptStore(receiptDirectory);
+        cashierDeskServiceImpl = new CashierDeskServiceImpl(new ShopServiceImpl(), receiptStore);
+        checkoutExecutor = new CheckoutExecutor(cashierDeskServiceImpl, maxConcurrentCheckouts);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteReceipts() throws IOException {
+        checkoutExecutor.close();
+        receiptStore.close();
+        try (Stream<Path> paths = Files.walk(receiptDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void sequential() {
+        cashierDeskServiceImpl.processPurchaseForAllCustomers(shop, productCatalog, queue, cashierDesk);
+    }
+
+    @Benchmark
+    public void virtualThreads() {
+        checkoutExecutor.processPurchaseForAllCustomers(shop, productCatalog, queue, cashierDesk);
+    }
+}
@@ -0,0 +1,66 @@
+package com.shop.benchmark;
+
+import com.shop.model.ImportReport;
+import com.shop.model.Shop;
+import com.shop.service.DeliveryImporter;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a generated manifest of {@code lines} lines into an empty shop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeliveryImportBenchmark {
+
+    @Param({"1000000"})
+    public int lines;
+
+    @Param({"10000"})
+    public int products;
+
+    private Path manifest;
+    private ShopServiceImpl shopServiceImpl;
+    private Shop shop;
+
+    @Setup(Level.Trial)
+    public void writeManifest() throws IOException {
+        manifest = Files.createTempFile("delivery", ".csv");
+        LocalDate today = LocalDate.now();
+        try (BufferedWriter writer = Files.newBufferedWriter(manifest)) {
+            writer.write("productId,arrivalDate,quantity\n");
+            for (int line = 0; line < lines; line++) {
+                writer.write("P" + line % products + "," + today.minusDays(line % 30) + "," + (1 + line % 20) + "\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteManifest() throws IOException {
+        Files.delete(manifest);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyShop() {
+        shopServiceImpl = new ShopServiceImpl();
+        shop = new Shop();
+    }
+
+    @Benchmark
+    public ImportReport importDelivery() {
+        ImportReport report = new DeliveryImporter(shopServiceImpl).importDelivery(shop, manifest);
+        System.out.println(report);
+        return report;
+    }
+}
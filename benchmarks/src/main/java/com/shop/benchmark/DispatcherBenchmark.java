@@ -0,0 +1,100 @@
+package com.shop.benchmark;
+
+import com.shop.model.*;
+import com.shop.service.CashierDeskServiceImpl;
+import com.shop.service.CheckoutDispatcher;
+import com.shop.service.CustomerServiceImpl;
+import com.shop.service.ReceiptStore;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks out {@code customers} customers with baskets of 1 to {@code maxBasketSize} lines
+ * through a {@link CheckoutDispatcher} over {@code desks} desks, with receipt output stubbed out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int desks;
+
+    @Param({"2000"})
+    public int customers;
+
+    @Param({"40"})
+    public int maxBasketSize;
+
+    private CashierDeskServiceImpl cashierDeskServiceImpl;
+    private ProductCatalog productCatalog;
+    private List<Customer> arrivals;
+    private Shop shop;
+    private CheckoutDispatcher dispatcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(Path.of("unused")) {
+            @Override
+            public void save(Receipt receipt) {
+            }
+
+            @Override
+            public void saveAsText(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+            }
+        });
+
+        LocalDate today = DateWrapper.currentDate();
+        productCatalog = new ProductCatalog();
+        Shop stock = new Shop();
+        stock.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        for (int i = 0; i < maxBasketSize; i++) {
+            String productId = "P" + i;
+            productCatalog.getProductCatalog().put(productId,
+                    new NonPerishableProduct(productId, "Product " + i, BigDecimal.valueOf(99 + i, 2), Category.FOOD));
+            shopServiceImpl.addProduct(stock, productId, Integer.MAX_VALUE / 2, today);
+        }
+
+        CustomerServiceImpl customerServiceImpl = new CustomerServiceImpl();
+        arrivals = new ArrayList<>(customers);
+        for (int c = 0; c < customers; c++) {
+            Customer customer = new Customer();
+            customer.setBudget(BigDecimal.valueOf(Long.MAX_VALUE));
+            int lines = 1 + c * 7 % maxBasketSize;
+            for (int i = 0; i < lines; i++) {
+                customerServiceImpl.addProductToBasket(customer, stock, "P" + i, 1, shopServiceImpl);
+            }
+            arrivals.add(customer);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void queueCustomers() {
+        shop = new Shop();
+        shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        for (int d = 0; d < desks; d++) {
+            CashierDesk cashierDesk = new CashierDesk();
+            cashierDesk.setCashier(new Cashier("C" + d, "Cashier " + d, BigDecimal.valueOf(2000)));
+            shop.getCashierDesks().add(cashierDesk);
+        }
+        dispatcher = new CheckoutDispatcher(cashierDeskServiceImpl, shop, productCatalog);
+        arrivals.forEach(dispatcher::submit);
+    }
+
+    @Benchmark
+    public CheckoutDispatcher checkoutAll() {
+        dispatcher.checkoutAll();
+        return dispatcher;
+    }
+}
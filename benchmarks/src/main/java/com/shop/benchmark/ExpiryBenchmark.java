@@ -0,0 +1,30 @@
+package com.shop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Before every sweep each perishable product receives one batch that has already expired, so
+ * the measured call always has work to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpiryBenchmark extends ShopFixture {
+
+    @Setup(Level.Invocation)
+    public void expire() {
+        for (int i = 0; i < catalogSize; i += 2) {
+            shopServiceImpl.addProduct(shop, productId(i), 1, today.minusDays(EXPIRATION_DAYS + 1L));
+        }
+    }
+
+    @Benchmark
+    public void clearExpiredFoods() {
+        shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+    }
+}
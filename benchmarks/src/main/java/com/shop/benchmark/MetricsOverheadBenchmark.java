@@ -0,0 +1,51 @@
+package com.shop.benchmark;
+
+import com.shop.service.CashierDeskServiceImpl;
+import com.shop.service.ShopMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the checkout instrumentation: prices the fixture's basket and removes and restocks
+ * one unit with {@link ShopMetrics} switched off and on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark extends ShopFixture {
+
+    @Param({"false", "true"})
+    public boolean metricsEnabled;
+
+    private CashierDeskServiceImpl cashierDeskServiceImpl;
+    private int next;
+
+    @Override
+    protected void setUp() {
+        ShopMetrics.global().setEnabled(metricsEnabled);
+        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl);
+    }
+
+    @TearDown(Level.Trial)
+    public void disableMetrics() {
+        ShopMetrics.global().setEnabled(false);
+        ShopMetrics.global().reset();
+    }
+
+    @Benchmark
+    public BigDecimal getTotalBasketPrice() {
+        return cashierDeskServiceImpl.getTotalBasketPrice(shop, productCatalog, customer.getBasket());
+    }
+
+    @Benchmark
+    public void removeAndRestockProduct() {
+        String productId = productId(2 * next++ + 1);
+        shopServiceImpl.removeProduct(shop, productId, 1);
+        shopServiceImpl.addProduct(shop, productId, 1, today);
+    }
+}
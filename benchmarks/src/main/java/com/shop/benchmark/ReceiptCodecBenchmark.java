@@ -0,0 +1,77 @@
+package com.shop.benchmark;
+
+import com.shop.model.Receipt;
+import com.shop.service.ReceiptCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptCodecBenchmark {
+
+    @Param({"3", "30"})
+    private int items;
+
+    private Receipt receipt;
+    private byte[] encoded;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<String, Integer> receiptItems = new HashMap<>();
+        for (int i = 0; i < items; i++) {
+            receiptItems.put("PRODUCT-" + i, 1 + i % 7);
+        }
+        receipt = new Receipt(UUID.randomUUID().toString(), "John Doe", LocalDate.of(2023, 5, 15),
+                receiptItems, new BigDecimal("123.45"));
+        encoded = ReceiptCodec.encode(receipt);
+        serialized = serialize(receipt);
+
+        System.out.printf("%n%d items: codec %d bytes, java serialization %d bytes%n", items, encoded.length, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] encodeCodec() {
+        return ReceiptCodec.encode(receipt);
+    }
+
+    @Benchmark
+    public byte[] encodeSerializable() throws IOException {
+        return serialize(receipt);
+    }
+
+    @Benchmark
+    public Receipt decodeCodec() {
+        return ReceiptCodec.decode(encoded);
+    }
+
+    @Benchmark
+    public Receipt decodeSerializable() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (Receipt) ois.readObject();
+        }
+    }
+
+    private static byte[] serialize(Receipt receipt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(receipt);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,88 @@
+package com.shop.benchmark;
+
+import com.shop.model.Batch;
+import com.shop.model.BulkDelivery;
+import com.shop.model.ProductCatalog;
+import com.shop.model.Shop;
+import com.shop.service.ShopPersistence;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Brings back a shop that received {@code lines} delivery lines over {@code products}
+ * products, once from a snapshot plus {@code logEvents} logged stock changes and once by
+ * stocking the deliveries again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestoreBenchmark {
+
+    @Param({"1000000"})
+    public int lines;
+
+    @Param({"100", "10000"})
+    public int products;
+
+    @Param({"10000"})
+    public int logEvents;
+
+    private Path directory;
+    private BulkDelivery delivery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LocalDate today = LocalDate.now();
+        delivery = new BulkDelivery();
+        for (int line = 0; line < lines; line++) {
+            delivery.getProducts().computeIfAbsent("P" + line % products, k -> new ArrayList<>())
+                    .add(new Batch(today.minusDays(line % 365), 1 + line % 20));
+        }
+
+        directory = Files.createTempDirectory("shop-restore");
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop shop = persistence.restore(shopServiceImpl).shop();
+            shopServiceImpl.processBulkDelivery(shop, delivery);
+            persistence.checkpoint(shop, new ProductCatalog());
+            for (int event = 0; event < logEvents; event++) {
+                shopServiceImpl.addProduct(shop, "P" + event % products, 1, today);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Shop restoreFromSnapshot() {
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            return persistence.restore(new ShopServiceImpl()).shop();
+        }
+    }
+
+    @Benchmark
+    public Shop restockDeliveries() {
+        Shop shop = new Shop();
+        new ShopServiceImpl().processBulkDelivery(shop, delivery);
+        return shop;
+    }
+}
@@ -0,0 +1,100 @@
+package com.shop.benchmark;
+
+import com.shop.model.*;
+import com.shop.service.CustomerServiceImpl;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shop, catalog and a filled basket shared by the benchmarks, sized by the JMH parameters.
+ * Benchmarks extend this class rather than injecting it, so setup and measurement see the same shop.
+ */
+@State(Scope.Thread)
+public abstract class ShopFixture {
+    static final int BATCH_QUANTITY = 50;
+    static final int EXPIRATION_DAYS = 3650;
+
+    @Param({"100", "10000"})
+    public int catalogSize;
+
+    @Param({"1", "16"})
+    public int batchesPerProduct;
+
+    @Param({"5", "50"})
+    public int basketSize;
+
+    protected LocalDate today;
+    protected ShopServiceImpl shopServiceImpl;
+    protected CustomerServiceImpl customerServiceImpl;
+    protected ProductCatalog productCatalog;
+    protected Shop shop;
+    protected Cashier cashier;
+    protected CashierDesk cashierDesk;
+    protected List<String> productIds;
+    protected Customer customer;
+
+    @Setup(Level.Trial)
+    public void setUpShop() {
+        today = DateWrapper.currentDate();
+        shopServiceImpl = new ShopServiceImpl();
+        customerServiceImpl = new CustomerServiceImpl();
+
+        productCatalog = new ProductCatalog();
+        productIds = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            String productId = "P" + i;
+            BigDecimal price = BigDecimal.valueOf(99 + i % 1000, 2);
+            Product product = i % 2 == 0
+                    ? new PerishableProduct(productId, "Product " + i, price, Category.FOOD, EXPIRATION_DAYS)
+                    : new NonPerishableProduct(productId, "Product " + i, price, Category.NON_FOOD);
+            productCatalog.getProductCatalog().put(productId, product);
+            productIds.add(productId);
+        }
+
+        shop = new Shop();
+        shop.setName("BenchmarkShop");
+        shop.setDaysBeforeExpityDiscount(EXPIRATION_DAYS / 2);
+        shop.setDiscountPercentage(BigDecimal.valueOf(0.20));
+        shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        shop.getMarkupPercentage().put(Category.NON_FOOD, BigDecimal.valueOf(0.20));
+
+        for (String productId : productIds) {
+            for (int b = 0; b < batchesPerProduct; b++) {
+                shopServiceImpl.addProduct(shop, productId, BATCH_QUANTITY, today.minusDays(b * (EXPIRATION_DAYS / 16)));
+            }
+        }
+
+        cashier = new Cashier();
+        cashier.setId("C001");
+        cashier.setName("Benchmark");
+        cashier.setSalary(BigDecimal.valueOf(2000));
+        cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(cashier);
+        shop.getCashierDesks().add(cashierDesk);
+
+        customer = new Customer();
+        customer.setBudget(BigDecimal.valueOf(Long.MAX_VALUE));
+        for (int i = 0; i < basketSize; i++) {
+            String productId = productIds.get(i * (catalogSize / basketSize));
+            int amount = Math.min(BATCH_QUANTITY * batchesPerProduct, BATCH_QUANTITY + 1);
+            customerServiceImpl.addProductToBasket(customer, shop, productId, amount, shopServiceImpl);
+        }
+        setUp();
+    }
+
+    protected void setUp() {
+    }
+
+    protected String productId(int i) {
+        return productIds.get(Math.floorMod(i, catalogSize));
+    }
+
+    protected LocalDate oldestArrival() {
+        return today.minusDays(EXPIRATION_DAYS - 1L);
+    }
+}
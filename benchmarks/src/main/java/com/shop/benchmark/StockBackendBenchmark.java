@@ -0,0 +1,57 @@
+package com.shop.benchmark;
+
+import com.shop.model.Batch;
+import com.shop.model.Shop;
+import com.shop.service.PackedShopServiceImpl;
+import com.shop.service.ShopServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves and releases one unit of a product holding {@code batchesPerProduct} batches, with
+ * the heap-backed and the packed stock. See StockFootprint for the memory side.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockBackendBenchmark {
+
+    @Param({"heap", "packed"})
+    public String backend;
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    @Param({"1", "16"})
+    public int batchesPerProduct;
+
+    private ShopServiceImpl shopServiceImpl;
+    private Shop shop;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shopServiceImpl = backend.equals("packed") ? new PackedShopServiceImpl() : new ShopServiceImpl();
+        shop = new Shop();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < catalogSize; i++) {
+            for (int b = 0; b < batchesPerProduct; b++) {
+                shopServiceImpl.addProduct(shop, "P" + i, 50, today.minusDays(b));
+            }
+        }
+    }
+
+    @Benchmark
+    public int reserveAndRelease() {
+        String productId = "P" + (next++ % catalogSize);
+        List<Batch> reserved = shopServiceImpl.reserveProduct(shop, productId, 1);
+        shopServiceImpl.releaseProduct(shop, productId, reserved);
+        return shopServiceImpl.getProductQuantity(shop, productId);
+    }
+}
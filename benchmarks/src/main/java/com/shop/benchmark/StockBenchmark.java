@@ -0,0 +1,74 @@
+package com.shop.benchmark;
+
+import com.shop.model.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock operations mutate the shop, so each invocation is prepared outside the measurement:
+ * removals and reservations take exactly the two oldest batches restocked before the call and
+ * deliveries are removed again afterwards. Queue sizes stay at {@code batchesPerProduct} for the
+ * whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockBenchmark extends ShopFixture {
+    private static final int AMOUNT = 2 * BATCH_QUANTITY;
+
+    private int next;
+    private String productId;
+    private int restockedBatches;
+    private Customer basketOwner;
+    private Delivery delivery;
+
+    @Override
+    protected void setUp() {
+        basketOwner = new Customer();
+        delivery = new Delivery();
+        for (int i = 0; i < basketSize; i++) {
+            delivery.getProducts().put(productId(i), new Batch(oldestArrival(), BATCH_QUANTITY));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void restock() {
+        productId = productId(next++);
+        restockedBatches = shop.getStockBatches().get(productId).size();
+        basketOwner.getBasket().getItems().clear();
+        shopServiceImpl.addProduct(shop, productId, BATCH_QUANTITY, oldestArrival());
+        shopServiceImpl.addProduct(shop, productId, BATCH_QUANTITY, oldestArrival());
+    }
+
+    @TearDown(Level.Invocation)
+    public void unstock() {
+        if (shop.getStockBatches().get(productId).size() > restockedBatches) {
+            shopServiceImpl.removeProduct(shop, productId, AMOUNT);
+        }
+        for (String deliveredId : delivery.getProducts().keySet()) {
+            if (shop.getStockBatches().get(deliveredId).size() > batchesPerProduct) {
+                shopServiceImpl.removeProduct(shop, deliveredId, BATCH_QUANTITY);
+            }
+        }
+    }
+
+    @Benchmark
+    public void removeProduct() {
+        shopServiceImpl.removeProduct(shop, productId, AMOUNT);
+    }
+
+    @Benchmark
+    public Basket addProductToBasket() {
+        customerServiceImpl.addProductToBasket(basketOwner, shop, productId, AMOUNT, shopServiceImpl);
+        return basketOwner.getBasket();
+    }
+
+    @Benchmark
+    public void processDelivery() {
+        shopServiceImpl.processDelivery(shop, delivery);
+    }
+}
@@ -0,0 +1,77 @@
+package com.shop.benchmark;
+
+import com.shop.model.Shop;
+import com.shop.service.PackedShopServiceImpl;
+import com.shop.service.ShopServiceImpl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Prints the heap retained by a shop's stock with the heap-backed ShopServiceImpl and with
+ * PackedShopServiceImpl, for a few catalog and batch counts. Run it with
+ * <pre>
+ *   java -cp benchmarks/target/benchmarks.jar com.shop.benchmark.StockFootprint
+ * </pre>
+ * Sizes are the median, over a few runs, of the used heap freed by full collections once the
+ * stock is dropped, so they include the product id strings and the service's indexes. Run with -XX:+UseSerialGC for
+ * steadier numbers.
+ */
+public class StockFootprint {
+    private static final int[] CATALOG_SIZES = {10_000, 100_000};
+    private static final int[] BATCHES_PER_PRODUCT = {1, 16, 64};
+    private static final int RUNS = 5;
+
+    private static Object measured;
+
+    public static void main(String[] args) {
+        retained(() -> stock(new ShopServiceImpl(), CATALOG_SIZES[0], 1));
+        retained(() -> stock(new PackedShopServiceImpl(), CATALOG_SIZES[0], 1));
+
+        System.out.printf("%10s %10s %14s %14s %8s%n", "products", "batches", "heap (bytes)", "packed (bytes)", "ratio");
+        for (int catalogSize : CATALOG_SIZES) {
+            for (int batchesPerProduct : BATCHES_PER_PRODUCT) {
+                long heap = retained(() -> stock(new ShopServiceImpl(), catalogSize, batchesPerProduct));
+                long packed = retained(() -> stock(new PackedShopServiceImpl(), catalogSize, batchesPerProduct));
+                System.out.printf("%10d %10d %14d %14d %8.1f%n", catalogSize, catalogSize * batchesPerProduct,
+                        heap, packed, (double) heap / packed);
+            }
+        }
+    }
+
+    private static Object stock(ShopServiceImpl shopServiceImpl, int catalogSize, int batchesPerProduct) {
+        Shop shop = new Shop();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < catalogSize; i++) {
+            String productId = "P" + i;
+            for (int b = 0; b < batchesPerProduct; b++) {
+                shopServiceImpl.addProduct(shop, productId, 50, today.minusDays(b));
+            }
+        }
+        shopServiceImpl.getProductQuantity(shop, "P0");
+        return new Object[]{shopServiceImpl, shop};
+    }
+
+    private static long retained(Supplier<Object> build) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] runs = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            measured = build.get();
+            long with = usedAfterGc(memory);
+            measured = null;
+            runs[i] = with - usedAfterGc(memory);
+        }
+        Arrays.sort(runs);
+        return runs[RUNS / 2];
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -14,5 +16,14 @@ import java.util.PriorityQueue;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Basket {
+    public static final long UNPRICED = -1;
+
     private Map<String, PriorityQueue<Batch>> items = new HashMap<>();
+    private BigDecimal runningTotal = BigDecimal.ZERO;
+    private long priceVersion = UNPRICED;
+    private LocalDate pricedOn;
+
+    public Basket(Map<String, PriorityQueue<Batch>> items) {
+        this.items = items;
+    }
 }
@@ -0,0 +1,41 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class BasketLine {
+    public static final Comparator<BasketLine> CHEAPEST_FIRST = Comparator.comparing(BasketLine::getUnitPrice);
+    public static final Comparator<BasketLine> DEAREST_FIRST = CHEAPEST_FIRST.reversed();
+
+    private String productId;
+    private LocalDate arrivalDate;
+    private int quantity;
+    private BigDecimal unitPrice;
+
+    public BigDecimal getPrice() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * Orders lines by the position of their product in {@code productIds}, most important first.
+     * Products that are not listed come last.
+     */
+    public static Comparator<BasketLine> byPriority(List<String> productIds) {
+        Map<String, Integer> priorities = new HashMap<>();
+        for (int i = productIds.size() - 1; i >= 0; i--) {
+            priorities.put(productIds.get(i), i);
+        }
+        return Comparator.comparingInt(line -> priorities.getOrDefault(line.getProductId(), Integer.MAX_VALUE));
+    }
+}
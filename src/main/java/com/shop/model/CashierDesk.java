@@ -5,8 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 @Getter
 @Setter
@@ -14,5 +14,5 @@ import java.util.Queue;
 @NoArgsConstructor
 public class CashierDesk {
     private Cashier cashier;
-    private Queue<Customer> customers = new LinkedList<>();
+    private Deque<Customer> customers = new ConcurrentLinkedDeque<>();
 }
@@ -0,0 +1,36 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ImportReport {
+    private long acceptedLines;
+    private long rejectedLines;
+    private long bytesRead;
+    private Duration elapsed;
+    private List<String> rejections;
+
+    public double getLinesPerSecond() {
+        return perSecond(acceptedLines + rejectedLines);
+    }
+
+    public double getMegabytesPerSecond() {
+        return perSecond(bytesRead) / (1024 * 1024);
+    }
+
+    private double perSecond(long count) {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : count * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d lines (%d rejected) from %d bytes in %d ms: %.0f lines/s, %.1f MB/s",
+                acceptedLines, rejectedLines, bytesRead, elapsed.toMillis(), getLinesPerSecond(), getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,27 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LatencyStats {
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long p50Nanos;
+    private long p90Nanos;
+    private long p99Nanos;
+    private long p999Nanos;
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                count, getMeanNanos() / 1000, p50Nanos / 1000.0, p90Nanos / 1000.0, p99Nanos / 1000.0,
+                p999Nanos / 1000.0, maxNanos / 1000.0);
+    }
+}
@@ -0,0 +1,5 @@
+package com.shop.model;
+
+public enum MeteredFailure {
+    INSUFFICIENT_FUNDS, OUT_OF_STOCK, RECEIPT_NOT_SAVED
+}
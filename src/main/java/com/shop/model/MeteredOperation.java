@@ -0,0 +1,6 @@
+package com.shop.model;
+
+public enum MeteredOperation {
+    GET_TOTAL_BASKET_PRICE, PROCESS_PURCHASE, SAVE_RECEIPT, ADD_PRODUCT_TO_BASKET, REMOVE_PRODUCT,
+    CLEAR_EXPIRED_FOODS, PROCESS_DELIVERY, PROCESS_BULK_DELIVERY
+}
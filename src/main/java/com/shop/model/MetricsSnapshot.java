@@ -0,0 +1,25 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class MetricsSnapshot {
+    private Instant takenAt;
+    private Map<MeteredOperation, LatencyStats> latencies;
+    private Map<MeteredFailure, Long> failures;
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Shop metrics at ").append(takenAt);
+        latencies.forEach((operation, stats) -> {
+            if (stats.getCount() > 0) text.append('\n').append(operation).append(": ").append(stats);
+        });
+        failures.forEach((failure, count) -> text.append('\n').append(failure).append(": ").append(count));
+        return text.toString();
+    }
+}
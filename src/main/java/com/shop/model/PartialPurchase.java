@@ -0,0 +1,13 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class PartialPurchase {
+    private Receipt receipt;
+    private List<BasketLine> droppedLines;
+}
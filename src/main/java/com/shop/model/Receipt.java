@@ -8,6 +8,7 @@ import lombok.Setter;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 @Getter
@@ -21,4 +22,9 @@ public class Receipt implements Serializable {
     private LocalDate date;
     private Map<String, Integer> items;
     private BigDecimal total;
+    private List<ReceiptLine> lines;
+
+    public Receipt(String id, String cashierName, LocalDate date, Map<String, Integer> items, BigDecimal total) {
+        this(id, cashierName, date, items, total, null);
+    }
 }
@@ -0,0 +1,22 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReceiptLine implements Serializable {
+    private static final long serialVersionUID = 4172394836612470915L;
+    private String productId;
+    private int quantity;
+    private BigDecimal unitPrice;
+}
@@ -0,0 +1,21 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+@Getter
+@AllArgsConstructor
+public class SalesReport {
+    private LocalDate from;
+    private LocalDate to;
+    private long receiptCount;
+    private BigDecimal revenue;
+    private SortedMap<LocalDate, BigDecimal> revenueByDate;
+    private Map<String, Long> unitsByProduct;
+    private Map<String, BigDecimal> revenueByCashier;
+}
@@ -7,6 +7,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 @Setter
@@ -18,5 +19,5 @@ public class Shop {
     private int daysBeforeExpityDiscount;
     private BigDecimal discountPercentage;
     private List<CashierDesk> cashierDesks = new ArrayList<>();
-    private Map<String, PriorityQueue<Batch>> stockBatches = new HashMap<>();
+    private Map<String, PriorityQueue<Batch>> stockBatches = new ConcurrentHashMap<>();
 }
\ No newline at end of file
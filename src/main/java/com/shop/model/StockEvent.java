@@ -0,0 +1,17 @@
+package com.shop.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class StockEvent {
+    private StockEventType type;
+    private String productId;
+    private LocalDate arrivalDate;
+    private int quantity;
+}
@@ -0,0 +1,5 @@
+package com.shop.model;
+
+public enum StockEventType {
+    ADDED, REMOVED, RESERVED, RELEASED, EXPIRED, SOLD
+}
@@ -0,0 +1,201 @@
+package com.shop.service;
+
+import com.shop.model.MeteredFailure;
+import com.shop.model.MeteredOperation;
+import com.shop.model.ProductCatalog;
+import com.shop.model.Receipt;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Persists receipts on a background thread so a checkout only pays for handing the receipt
+ * over. Receipts are written in groups of up to {@code maxBatchSize} and the journal is synced
+ * to disk once per group. When the queue is full {@link #submit} blocks until the writer catches up.
+ * Each receipt is saved on its own, so one that cannot be written does not hold back the rest
+ * of its group. {@link #flush} returns once everything submitted before it has been handled and
+ * fails with the ids of every receipt that could not be persisted since the last flush. The
+ * writer records {@link MeteredOperation#SAVE_RECEIPT} for each receipt from the start of its
+ * save until its group is forced to disk, and counts each one it fails to persist. {@link #close} rejects
+ * further submits, lets the writer finish what is queued and waits for it; the writer thread is
+ * never interrupted, so an interrupt cannot close the journal's channel under it.
+ */
+public class AsyncReceiptWriter implements AutoCloseable {
+    private static final PendingReceipt STOP = new PendingReceipt(null, null, null);
+
+    private final ReceiptStore receiptStore;
+    private final ShopMetrics metrics = ShopMetrics.global();
+    private final BlockingQueue<PendingReceipt> queue;
+    private final int maxBatchSize;
+    private final Thread writerThread;
+    private final Object progressLock = new Object();
+    private long submitted;
+    private long handled;
+    private long persisted;
+    private int enqueuing;
+    private final Map<String, RuntimeException> failures = new LinkedHashMap<>();
+    private boolean closed;
+
+    public AsyncReceiptWriter(ReceiptStore receiptStore, int capacity, int maxBatchSize) {
+        this.receiptStore = receiptStore;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.writerThread = new Thread(this::writeLoop, "receipt-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public ReceiptStore getReceiptStore() {
+        return receiptStore;
+    }
+
+    public long getPersistedCount() {
+        synchronized (progressLock) {
+            return persisted;
+        }
+    }
+
+    public void submit(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+        synchronized (progressLock) {
+            if (closed) throw new IllegalStateException("Receipt writer is closed");
+            submitted++;
+            enqueuing++;
+        }
+
+        boolean enqueued = false;
+        try {
+            queue.put(new PendingReceipt(receipt, cashierName, productCatalog));
+            enqueued = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while submitting receipt " + receipt.getId(), e);
+        } finally {
+            synchronized (progressLock) {
+                if (!enqueued) submitted--;
+                enqueuing--;
+                progressLock.notifyAll();
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (progressLock) {
+            long target = submitted;
+            try {
+                while (handled < target) progressLock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while flushing receipts", e);
+            }
+
+            if (failures.isEmpty()) return;
+            RuntimeException e = new RuntimeException("Error writing receipts " + failures.keySet() + ": "
+                    + failures.values().iterator().next().getMessage());
+            failures.values().forEach(e::addSuppressed);
+            failures.clear();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        synchronized (progressLock) {
+            if (closed) return;
+            closed = true;
+            while (enqueuing > 0) {
+                try {
+                    progressLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        while (true) {
+            try {
+                queue.put(STOP);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (true) {
+            try {
+                writerThread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+
+        flush();
+    }
+
+    private void writeLoop() {
+        List<PendingReceipt> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            if (batch.get(batch.size() - 1) == STOP) {
+                batch.remove(batch.size() - 1);
+                stopping = true;
+                if (batch.isEmpty()) break;
+            }
+
+            Map<String, RuntimeException> batchFailures = new LinkedHashMap<>();
+            Map<PendingReceipt, Long> saved = new IdentityHashMap<>(batch.size());
+            for (PendingReceipt pending : batch) {
+                long saveStart = metrics.start();
+                try {
+                    receiptStore.save(pending.receipt());
+                    receiptStore.saveAsText(pending.receipt(), pending.cashierName(), pending.productCatalog());
+                    saved.put(pending, saveStart);
+                } catch (RuntimeException e) {
+                    batchFailures.put(pending.receipt().getId(), e);
+                }
+            }
+            saved.keySet().removeIf(pending -> {
+                try {
+                    receiptStore.syncText(pending.receipt(), pending.cashierName());
+                    return false;
+                } catch (RuntimeException e) {
+                    batchFailures.put(pending.receipt().getId(), e);
+                    return true;
+                }
+            });
+            if (!saved.isEmpty()) {
+                try {
+                    receiptStore.sync();
+                } catch (RuntimeException e) {
+                    saved.keySet().forEach(pending -> batchFailures.put(pending.receipt().getId(), e));
+                    saved.clear();
+                }
+            }
+            saved.values().forEach(saveStart -> metrics.stop(MeteredOperation.SAVE_RECEIPT, saveStart));
+            batchFailures.forEach((receiptId, e) -> metrics.failed(MeteredFailure.RECEIPT_NOT_SAVED));
+
+            synchronized (progressLock) {
+                handled += batch.size();
+                persisted += saved.size();
+                failures.putAll(batchFailures);
+                progressLock.notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private record PendingReceipt(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+    }
+}
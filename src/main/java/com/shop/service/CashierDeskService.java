@@ -20,13 +20,20 @@ public interface CashierDeskService {
 
     void processPurchase(Shop shop, ProductCatalog productCatalog, Basket basket, BigDecimal budget, CashierDesk cashierDesk);
 
+    PartialPurchase processPartialPurchase(Shop shop, ProductCatalog productCatalog, Basket basket, BigDecimal budget,
+                                           CashierDesk cashierDesk, Comparator<BasketLine> order);
+
     void processPurchaseForAllCustomers(Shop shop, ProductCatalog productCatalog, List<Customer> customers, CashierDesk cashierDesk);
 
+    void processPurchaseForAllDesks(Shop shop, ProductCatalog productCatalog);
+
     Receipt createReceipt(Cashier cashier, Shop shop, ProductCatalog productCatalog, Basket basket);
 
+    Receipt createReceipt(Cashier cashier, Basket basket, BigDecimal totalCost);
+
     void printReceipt(Receipt receipt);
 
-    void saveReceiptAsText(Receipt receipt, String cashierName);
+    void saveReceiptAsText(Receipt receipt, String cashierName, ProductCatalog productCatalog);
 
     Receipt loadReceipt(String receiptId);
 }
@@ -3,56 +3,43 @@ package com.shop.service;
 import com.shop.exception.InsufficientFundsException;
 import com.shop.model.*;
 
-import java.io.*;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 public class CashierDeskServiceImpl implements CashierDeskService {
     private final ShopServiceImpl shopServiceImpl;
+    private final ReceiptStore receiptStore;
+    private final AsyncReceiptWriter receiptWriter;
+    private final ShopMetrics metrics = ShopMetrics.global();
 
     public CashierDeskServiceImpl(ShopServiceImpl shopServiceImpl) {
+        this(shopServiceImpl, new ReceiptStore(Paths.get("receipts")));
+    }
+
+    public CashierDeskServiceImpl(ShopServiceImpl shopServiceImpl, ReceiptStore receiptStore) {
         this.shopServiceImpl = shopServiceImpl;
+        this.receiptStore = receiptStore;
+        this.receiptWriter = null;
+    }
+
+    public CashierDeskServiceImpl(ShopServiceImpl shopServiceImpl, AsyncReceiptWriter receiptWriter) {
+        this.shopServiceImpl = shopServiceImpl;
+        this.receiptStore = receiptWriter.getReceiptStore();
+        this.receiptWriter = receiptWriter;
     }
 
     @Override
     public BigDecimal getTotalBasketPrice(Shop shop, ProductCatalog productCatalog, Basket basket) {
-        return basket.getItems().entrySet().stream()
-                .map(entry -> {
-                    String productId = entry.getKey();
-                    PriorityQueue<Batch> batches = entry.getValue();
-
-                    Product product = productCatalog.getProductCatalog().get(productId);
-
-                    BigDecimal totalProductPrice = BigDecimal.ZERO;
-
-                    PriorityQueue<Batch> batchesCopy = new PriorityQueue<>(batches);
-
-                    while (!batchesCopy.isEmpty()) {
-                        Batch batch = batchesCopy.poll();
-
-                        LocalDate expirationDate;
-                        if (product instanceof PerishableProduct) {
-                            PerishableProduct perishableProduct = (PerishableProduct) product;
-                            expirationDate = batch.getArrivalDate().plusDays(perishableProduct.getExpirationDays());
-                        } else {
-                            expirationDate = DateWrapper.currentDate();
-                        }
-
-                        BigDecimal priceForDate = shopServiceImpl.getProductPrice(shop, productCatalog, productId, expirationDate);
-
-                        BigDecimal batchPrice = priceForDate.multiply(BigDecimal.valueOf(batch.getQuantity()));
-                        totalProductPrice = totalProductPrice.add(batchPrice);
-                    }
-
-                    return totalProductPrice;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .setScale(2, RoundingMode.HALF_UP);
+        long start = metrics.start();
+        PricingContext pricing = new PricingContext(shopServiceImpl, shop, productCatalog);
+
+        long totalCents = basket.getItems().entrySet().stream()
+                .mapToLong(entry -> pricing.getBatchesPriceCents(entry.getKey(), entry.getValue()))
+                .reduce(0L, Math::addExact);
+        metrics.stop(MeteredOperation.GET_TOTAL_BASKET_PRICE, start);
+        return Money.toBigDecimal(totalCents);
     }
 
     public BigDecimal getTotalCustomerSpending(Shop shop, ProductCatalog productCatalog, List<Customer> customers) {
@@ -65,25 +52,121 @@ public class CashierDeskServiceImpl implements CashierDeskService {
 
     @Override
     public void processPurchase(Shop shop, ProductCatalog productCatalog, Basket basket, BigDecimal budget, CashierDesk cashierDesk) {
-        BigDecimal totalCost = getTotalBasketPrice(shop, productCatalog, basket);
+        long start = metrics.start();
+        BigDecimal totalCost = isPriced(basket) ? basket.getRunningTotal() : getTotalBasketPrice(shop, productCatalog, basket);
 
         if (totalCost.compareTo(budget) > 0) {
-            basket.getItems().forEach((productId, batches) -> {
-                PriorityQueue<Batch> batchesCopy = new PriorityQueue<>(batches);
+            throw rejectBasket(shop, basket, budget, totalCost);
+        }
 
-                while (!batchesCopy.isEmpty()) {
-                    Batch batch = batchesCopy.poll();
-                    shopServiceImpl.addProduct(shop, productId, batch.getQuantity(), batch.getArrivalDate());
-                }
-            });
+        completePurchase(shop, productCatalog, basket, totalCost, cashierDesk, new PricingContext(shopServiceImpl, shop, productCatalog));
+        metrics.stop(MeteredOperation.PROCESS_PURCHASE, start);
+    }
+
+    /**
+     * Checks out as much of the basket as the budget allows instead of rejecting all of it. The
+     * basket's batches are priced per unit and taken in the given order, each batch as far as
+     * the budget still reaches; {@link BasketLine#CHEAPEST_FIRST} keeps the most items and
+     * {@link BasketLine#DEAREST_FIRST} the most value. Only the units that did not fit are
+     * returned to stock, and they are reported as the dropped lines. A basket within budget is
+     * checked out as by processPurchase, without pricing each batch.
+     */
+    @Override
+    public PartialPurchase processPartialPurchase(Shop shop, ProductCatalog productCatalog, Basket basket, BigDecimal budget,
+                                                  CashierDesk cashierDesk, Comparator<BasketLine> order) {
+        long start = metrics.start();
+        BigDecimal totalCost = isPriced(basket) ? basket.getRunningTotal() : getTotalBasketPrice(shop, productCatalog, basket);
+        PricingContext pricing = new PricingContext(shopServiceImpl, shop, productCatalog);
+        if (totalCost.compareTo(budget) <= 0) {
+            Receipt receipt = completePurchase(shop, productCatalog, basket, totalCost, cashierDesk, pricing);
+            metrics.stop(MeteredOperation.PROCESS_PURCHASE, start);
+            return new PartialPurchase(receipt, List.of());
+        }
+
+        List<BasketLine> lines = new ArrayList<>();
+        basket.getItems().forEach((productId, batches) -> {
+            for (Batch batch : batches) {
+                long unitCents = pricing.getUnitPriceCents(productId, batch);
+                lines.add(new BasketLine(productId, batch.getArrivalDate(), batch.getQuantity(), Money.toBigDecimal(unitCents)));
+            }
+        });
+        lines.sort(order);
+
+        long budgetCents = Money.toCentsRoundedDown(budget);
+        long remainingCents = budgetCents;
+        Map<String, PriorityQueue<Batch>> kept = new HashMap<>();
+        List<BasketLine> dropped = new ArrayList<>();
+        for (BasketLine line : lines) {
+            long unitCents = Money.toCents(line.getUnitPrice());
+            int keep = unitCents == 0 ? line.getQuantity() : (int) Math.min(line.getQuantity(), remainingCents / unitCents);
+            if (keep > 0) {
+                kept.computeIfAbsent(line.getProductId(), k -> new PriorityQueue<>()).add(new Batch(line.getArrivalDate(), keep));
+                remainingCents -= Money.times(unitCents, keep);
+            }
+            if (keep < line.getQuantity()) {
+                dropped.add(new BasketLine(line.getProductId(), line.getArrivalDate(), line.getQuantity() - keep, line.getUnitPrice()));
+            }
+        }
 
-            throw new InsufficientFundsException("Customer budget of " + budget + " is insufficient for total cost: " + totalCost);
+        if (kept.isEmpty()) {
+            throw rejectBasket(shop, basket, budget, totalCost);
         }
 
-        Receipt receipt = createReceipt(cashierDesk.getCashier(), shop, productCatalog, basket);
+        Map<String, List<Batch>> returned = new HashMap<>();
+        for (BasketLine line : dropped) {
+            returned.computeIfAbsent(line.getProductId(), k -> new ArrayList<>()).add(new Batch(line.getArrivalDate(), line.getQuantity()));
+        }
+        returned.forEach((productId, batches) -> shopServiceImpl.releaseProduct(shop, productId, batches));
+
+        BigDecimal keptCost = Money.toBigDecimal(budgetCents - remainingCents);
+        basket.getItems().clear();
+        basket.getItems().putAll(kept);
+        basket.setRunningTotal(keptCost);
 
-        printReceipt(receipt);
-        saveReceiptAsText(receipt, cashierDesk.getCashier().getName());
+        Receipt receipt = completePurchase(shop, productCatalog, basket, keptCost, cashierDesk, pricing);
+        metrics.stop(MeteredOperation.PROCESS_PURCHASE, start);
+        return new PartialPurchase(receipt, dropped);
+    }
+
+    private InsufficientFundsException rejectBasket(Shop shop, Basket basket, BigDecimal budget, BigDecimal totalCost) {
+        Map<String, PriorityQueue<Batch>> items = basket.getItems();
+        items.forEach((productId, batches) -> shopServiceImpl.releaseProduct(shop, productId, batches));
+        items.clear();
+        basket.setRunningTotal(BigDecimal.ZERO);
+
+        metrics.failed(MeteredFailure.INSUFFICIENT_FUNDS);
+        return new InsufficientFundsException("Customer budget of " + budget + " is insufficient for total cost: " + totalCost);
+    }
+
+    private Receipt completePurchase(Shop shop, ProductCatalog productCatalog, Basket basket, BigDecimal totalCost,
+                                     CashierDesk cashierDesk, PricingContext pricing) {
+        Receipt receipt = createReceipt(cashierDesk.getCashier(), basket, totalCost);
+        receipt.setLines(getReceiptLines(pricing, basket));
+
+        if (receiptWriter != null) {
+            receiptWriter.submit(receipt, cashierDesk.getCashier().getName(), productCatalog);
+        } else {
+            long saveStart = metrics.start();
+            try {
+                printReceipt(receipt);
+                saveReceiptAsText(receipt, cashierDesk.getCashier().getName(), productCatalog);
+            } catch (RuntimeException e) {
+                metrics.failed(MeteredFailure.RECEIPT_NOT_SAVED);
+                throw e;
+            }
+            metrics.stop(MeteredOperation.SAVE_RECEIPT, saveStart);
+        }
+        basket.getItems().forEach((productId, batches) -> shopServiceImpl.sellProduct(shop, productId, batches));
+        return receipt;
+    }
+
+    /**
+     * Whether the basket's running total can be trusted: it was kept up by the catalog-aware
+     * addProductToBasket, with the prices still in force today.
+     */
+    private boolean isPriced(Basket basket) {
+        return basket.getPriceVersion() == shopServiceImpl.getPriceVersion()
+                && DateWrapper.currentDate().equals(basket.getPricedOn());
     }
 
     @Override
@@ -92,8 +175,37 @@ public class CashierDeskServiceImpl implements CashierDeskService {
             processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
         }
     }
+
+    @Override
+    public void processPurchaseForAllDesks(Shop shop, ProductCatalog productCatalog) {
+        new CheckoutDispatcher(this, shop, productCatalog).checkoutAll();
+    }
+
     @Override
     public Receipt createReceipt(Cashier cashier, Shop shop, ProductCatalog productCatalog, Basket basket) {
+        Receipt receipt = createReceipt(cashier, basket, getTotalBasketPrice(shop, productCatalog, basket));
+        receipt.setLines(getReceiptLines(new PricingContext(shopServiceImpl, shop, productCatalog), basket));
+        return receipt;
+    }
+
+    /**
+     * The basket's products at the unit prices checkout charges for them. Batches of a product
+     * sold at the same price share a line; near-expiry batches get a line of their own.
+     */
+    private static List<ReceiptLine> getReceiptLines(PricingContext pricing, Basket basket) {
+        List<ReceiptLine> lines = new ArrayList<>();
+        basket.getItems().forEach((productId, batches) -> {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (Batch batch : batches) {
+                quantities.merge(pricing.getUnitPriceCents(productId, batch), batch.getQuantity(), Integer::sum);
+            }
+            quantities.forEach((unitCents, quantity) -> lines.add(new ReceiptLine(productId, quantity, Money.toBigDecimal(unitCents))));
+        });
+        return lines;
+    }
+
+    @Override
+    public Receipt createReceipt(Cashier cashier, Basket basket, BigDecimal totalCost) {
         String id = UUID.randomUUID().toString();
         LocalDate date = DateWrapper.currentDate();
 
@@ -105,67 +217,21 @@ public class CashierDeskServiceImpl implements CashierDeskService {
             items.put(productId, totalQuantity);
         });
 
-        BigDecimal totalCost = getTotalBasketPrice(shop, productCatalog, basket);
-
         return new Receipt(id, cashier.getName(), date, items, totalCost);
     }
 
     @Override
     public void printReceipt(Receipt receipt) {
-        try {
-            Files.createDirectories(Paths.get("receipts"));
-
-            try (ObjectOutputStream oos = new ObjectOutputStream(
-                    Files.newOutputStream(Paths.get("receipts/" + receipt.getId() + ".ser")))) {
-                oos.writeObject(receipt);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Error printing receipt: " + e.getMessage());
-        }
+        receiptStore.save(receipt);
     }
 
     @Override
-    public void saveReceiptAsText(Receipt receipt, String cashierName) {
-        try {
-            Files.createDirectories(Paths.get("receipts"));
-
-            String fileName = "receipts/" + cashierName + "_" + receipt.getId().substring(0, 4) + "_" +
-                    receipt.getDate().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".txt";
-
-            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(fileName))) {
-                writer.write("Receipt\n");
-                writer.write("========\n");
-                writer.write("Cashier: " + receipt.getCashierName() + "\n");
-                writer.write("Date: " + receipt.getDate() + "\n");
-                writer.write("Items:\n");
-
-                receipt.getItems().forEach((productId, quantity) -> {
-                    try {
-                        Product product = new ProductCatalog().getProductCatalog().get(productId);
-                        String productName = product != null ? product.getName() : productId;
-                        BigDecimal price = product != null ? product.getPrice() : BigDecimal.ZERO;
-
-                        writer.write("- " + productName + " x " + quantity + " @ " + price + " each\n");
-                    } catch (IOException e) {
-                        throw new RuntimeException("Error writing receipt item: " + e.getMessage(), e);
-                    }
-                });
-
-                writer.write("\nTotal: $" + receipt.getTotal() + "\n");
-                writer.write("========\n");
-            }
-        } catch (IOException e) {
-            throw new RuntimeException("Error saving receipt as text: " + e.getMessage());
-        }
+    public void saveReceiptAsText(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+        receiptStore.saveAsText(receipt, cashierName, productCatalog);
     }
 
     @Override
     public Receipt loadReceipt(String receiptId) {
-        try (ObjectInputStream ois = new ObjectInputStream(
-                Files.newInputStream(Paths.get("receipts/" + receiptId + ".ser")))) {
-            return (Receipt) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            throw new RuntimeException("Error loading receipt: " + e.getMessage());
-        }
+        return receiptStore.load(receiptId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,174 @@
+package com.shop.service;
+
+import com.shop.exception.InsufficientFundsException;
+import com.shop.model.CashierDesk;
+import com.shop.model.Customer;
+import com.shop.model.ProductCatalog;
+import com.shop.model.Shop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Spreads customers over a shop's cashier desks and checks them out. A customer joins the desk
+ * with the least work queued, counted as the customers waiting there plus the basket lines they
+ * carry. During {@link #checkoutAll} every desk serves the front of its own queue, and a desk
+ * whose queue is empty takes the customer at the back of the longest queue instead.
+ *
+ * <p>The desks are those of the shop when the dispatcher is created. Customers already waiting
+ * at them are counted, but customers should only be added through {@link #submit} afterwards,
+ * or the queue depths will be off.
+ */
+public class CheckoutDispatcher {
+    private final CashierDeskServiceImpl cashierDeskServiceImpl;
+    private final Shop shop;
+    private final ProductCatalog productCatalog;
+    private final List<CashierDesk> cashierDesks;
+    private final AtomicIntegerArray queueDepths;
+    private final AtomicLongArray queuedWork;
+    private final AtomicLongArray customersServed;
+    private final AtomicLongArray customersStolen;
+
+    public CheckoutDispatcher(CashierDeskServiceImpl cashierDeskServiceImpl, Shop shop, ProductCatalog productCatalog) {
+        this.cashierDeskServiceImpl = cashierDeskServiceImpl;
+        this.shop = shop;
+        this.productCatalog = productCatalog;
+        this.cashierDesks = List.copyOf(shop.getCashierDesks());
+        this.queueDepths = new AtomicIntegerArray(cashierDesks.size());
+        this.queuedWork = new AtomicLongArray(cashierDesks.size());
+        this.customersServed = new AtomicLongArray(cashierDesks.size());
+        this.customersStolen = new AtomicLongArray(cashierDesks.size());
+
+        for (int desk = 0; desk < cashierDesks.size(); desk++) {
+            for (Customer customer : cashierDesks.get(desk).getCustomers()) {
+                queueDepths.incrementAndGet(desk);
+                queuedWork.addAndGet(desk, work(customer));
+            }
+        }
+    }
+
+    public int submit(Customer customer) {
+        if (cashierDesks.isEmpty()) throw new IllegalStateException("Shop has no cashier desks");
+
+        int desk = leastLoadedDesk();
+        queueDepths.incrementAndGet(desk);
+        queuedWork.addAndGet(desk, work(customer));
+        cashierDesks.get(desk).getCustomers().addLast(customer);
+        return desk;
+    }
+
+    public void checkoutAll() {
+        if (cashierDesks.isEmpty()) return;
+
+        ExecutorService executor = Executors.newFixedThreadPool(cashierDesks.size());
+        try {
+            List<Future<List<InsufficientFundsException>>> results = new ArrayList<>();
+            for (int desk = 0; desk < cashierDesks.size(); desk++) {
+                int servingDesk = desk;
+                results.add(executor.submit(() -> serve(servingDesk)));
+            }
+
+            InsufficientFundsException rejected = null;
+            for (Future<List<InsufficientFundsException>> result : results) {
+                for (InsufficientFundsException e : result.get()) {
+                    if (rejected == null) rejected = e;
+                    else rejected.addSuppressed(e);
+                }
+            }
+            if (rejected != null) throw rejected;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException("Error processing purchases: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while processing purchases", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public int getDeskCount() {
+        return cashierDesks.size();
+    }
+
+    public int getQueueDepth(int desk) {
+        return queueDepths.get(desk);
+    }
+
+    public int[] getQueueDepths() {
+        int[] depths = new int[queueDepths.length()];
+        for (int desk = 0; desk < depths.length; desk++) {
+            depths[desk] = queueDepths.get(desk);
+        }
+        return depths;
+    }
+
+    public long getQueuedWork(int desk) {
+        return queuedWork.get(desk);
+    }
+
+    public long getCustomersServed(int desk) {
+        return customersServed.get(desk);
+    }
+
+    public long getCustomersStolen(int desk) {
+        return customersStolen.get(desk);
+    }
+
+    private List<InsufficientFundsException> serve(int desk) {
+        List<InsufficientFundsException> rejected = new ArrayList<>();
+        CashierDesk cashierDesk = cashierDesks.get(desk);
+        Customer customer;
+        while ((customer = next(desk)) != null) {
+            try {
+                cashierDeskServiceImpl.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+            } catch (InsufficientFundsException e) {
+                rejected.add(e);
+            }
+            customersServed.incrementAndGet(desk);
+        }
+        return rejected;
+    }
+
+    private Customer next(int desk) {
+        Customer customer = take(desk, cashierDesks.get(desk).getCustomers().pollFirst());
+        if (customer != null) return customer;
+
+        int busiest = -1;
+        for (int other = 0; other < cashierDesks.size(); other++) {
+            if (other != desk && (busiest < 0 || queueDepths.get(other) > queueDepths.get(busiest))) busiest = other;
+        }
+        if (busiest >= 0) customer = take(busiest, cashierDesks.get(busiest).getCustomers().pollLast());
+        for (int other = 0; customer == null && other < cashierDesks.size(); other++) {
+            if (other != desk) customer = take(other, cashierDesks.get(other).getCustomers().pollLast());
+        }
+        if (customer != null) customersStolen.incrementAndGet(desk);
+        return customer;
+    }
+
+    private Customer take(int desk, Customer customer) {
+        if (customer != null) {
+            queueDepths.decrementAndGet(desk);
+            queuedWork.addAndGet(desk, -work(customer));
+        }
+        return customer;
+    }
+
+    private int leastLoadedDesk() {
+        int leastLoaded = 0;
+        for (int desk = 1; desk < cashierDesks.size(); desk++) {
+            if (queuedWork.get(desk) < queuedWork.get(leastLoaded)) leastLoaded = desk;
+        }
+        return leastLoaded;
+    }
+
+    private static long work(Customer customer) {
+        return 1L + customer.getBasket().getItems().size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.shop.service;
+
+import com.shop.model.CashierDesk;
+import com.shop.model.Customer;
+import com.shop.model.ProductCatalog;
+import com.shop.model.Shop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs each checkout on its own virtual thread, so checkouts blocked on receipt files do not
+ * hold a platform thread each. At most {@code maxConcurrentCheckouts} purchases run at once;
+ * the others wait parked on a semaphore, which bounds the number of receipt files open at the
+ * same time. Checkouts submitted before {@link #close} are completed by it.
+ */
+public class CheckoutExecutor implements AutoCloseable {
+    private final CashierDeskServiceImpl cashierDeskServiceImpl;
+    private final int maxConcurrentCheckouts;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CheckoutExecutor(CashierDeskServiceImpl cashierDeskServiceImpl, int maxConcurrentCheckouts) {
+        if (maxConcurrentCheckouts < 1) throw new IllegalArgumentException("maxConcurrentCheckouts must be positive: " + maxConcurrentCheckouts);
+        this.cashierDeskServiceImpl = cashierDeskServiceImpl;
+        this.maxConcurrentCheckouts = maxConcurrentCheckouts;
+        this.permits = new Semaphore(maxConcurrentCheckouts);
+    }
+
+    public Future<Void> submit(Shop shop, ProductCatalog productCatalog, Customer customer, CashierDesk cashierDesk) {
+        return executor.submit(() -> {
+            permits.acquire();
+            try {
+                cashierDeskServiceImpl.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+                return null;
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public void processPurchaseForAllCustomers(Shop shop, ProductCatalog productCatalog, List<Customer> customers, CashierDesk cashierDesk) {
+        List<Future<Void>> results = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            results.add(submit(shop, productCatalog, customer, cashierDesk));
+        }
+
+        RuntimeException failure = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new RuntimeException("Error processing purchase: " + e.getCause().getMessage(), e.getCause());
+                if (failure == null) failure = cause;
+                else failure.addSuppressed(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while processing purchases", e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    public int getMaxConcurrentCheckouts() {
+        return maxConcurrentCheckouts;
+    }
+
+    public int getActiveCheckouts() {
+        return maxConcurrentCheckouts - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
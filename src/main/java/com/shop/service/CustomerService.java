@@ -1,8 +1,11 @@
 package com.shop.service;
 
 import com.shop.model.Customer;
+import com.shop.model.ProductCatalog;
 import com.shop.model.Shop;
 
 public interface CustomerService {
     void addProductToBasket(Customer customer, Shop shop, String productId, int amount, ShopServiceImpl shopServiceImpl);
+
+    void addProductToBasket(Customer customer, Shop shop, ProductCatalog productCatalog, String productId, int amount, ShopServiceImpl shopServiceImpl);
 }
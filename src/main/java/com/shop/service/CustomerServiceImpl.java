@@ -1,33 +1,108 @@
 package com.shop.service;
 
+import com.shop.exception.InsufficientFundsException;
 import com.shop.exception.OutOfStockException;
 import com.shop.model.Basket;
 import com.shop.model.Batch;
 import com.shop.model.Customer;
+import com.shop.model.MeteredFailure;
+import com.shop.model.MeteredOperation;
+import com.shop.model.ProductCatalog;
 import com.shop.model.Shop;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 
+/**
+ * In budget-aware mode, a customer's budget is checked while the basket is built by the
+ * catalog-aware addProductToBasket instead of only at checkout. A line is refused without
+ * touching the stock when even its cheapest possible price no longer fits the budget, and it is
+ * returned to stock at once when the batches actually taken turn out to cost too much. Checkout
+ * then rarely has to return a whole basket.
+ */
 public class CustomerServiceImpl implements CustomerService {
+    private final ShopMetrics metrics = ShopMetrics.global();
+    private final boolean budgetAware;
+
+    public CustomerServiceImpl() {
+        this(false);
+    }
+
+    public CustomerServiceImpl(boolean budgetAware) {
+        this.budgetAware = budgetAware;
+    }
 
     @Override
     public void addProductToBasket(Customer customer, Shop shop, String productId, int amount, ShopServiceImpl shopServiceImpl) {
-        if(amount > shopServiceImpl.getProductQuantity(shop, productId)) throw new OutOfStockException("Not enough stock for product: " + productId);
+        long start = metrics.start();
+        Basket basket = customer.getBasket();
+        addToBasket(basket, productId, reserve(shop, productId, amount, shopServiceImpl));
+        basket.setPriceVersion(Basket.UNPRICED);
+        metrics.stop(MeteredOperation.ADD_PRODUCT_TO_BASKET, start);
+    }
 
+    /**
+     * Adds to the basket like the other overload and also adds the price of the batches taken
+     * to the basket's running total. If prices changed since the basket was last priced, the
+     * whole basket is priced again first, so the total is always current after a scan.
+     */
+    @Override
+    public void addProductToBasket(Customer customer, Shop shop, ProductCatalog productCatalog, String productId, int amount, ShopServiceImpl shopServiceImpl) {
+        long start = metrics.start();
+        long priceVersion = shopServiceImpl.getPriceVersion();
         Basket basket = customer.getBasket();
-        PriorityQueue<Batch> basketItems = basket.getItems().computeIfAbsent(productId, k -> new PriorityQueue<>());
-        PriorityQueue<Batch> stock = shop.getStockBatches().get(productId);
+        PricingContext pricing = new PricingContext(shopServiceImpl, shop, productCatalog);
+
+        long totalCents = basket.getPriceVersion() == priceVersion && pricing.getToday().equals(basket.getPricedOn())
+                ? Money.toCents(basket.getRunningTotal())
+                : getBasketPriceCents(basket, pricing);
+        basket.setRunningTotal(Money.toBigDecimal(totalCents));
+        basket.setPriceVersion(priceVersion);
+        basket.setPricedOn(pricing.getToday());
+
+        BigDecimal budget = budgetAware ? customer.getBudget() : null;
+        long budgetCents = budget != null ? Money.toCentsRoundedDown(budget) : Long.MAX_VALUE;
+        if (budget != null && Math.addExact(totalCents, Money.times(pricing.getLowestPriceCents(productId), amount)) > budgetCents) {
+            throw insufficientFunds(budget, productId);
+        }
 
-        int remaining = amount;
+        List<Batch> reserved = reserve(shop, productId, amount, shopServiceImpl);
+        long lineCents = pricing.getBatchesPriceCents(productId, reserved);
+        if (budget != null && Math.addExact(totalCents, lineCents) > budgetCents) {
+            shopServiceImpl.releaseProduct(shop, productId, reserved);
+            throw insufficientFunds(budget, productId);
+        }
+
+        addToBasket(basket, productId, reserved);
+        basket.setRunningTotal(Money.toBigDecimal(Math.addExact(totalCents, lineCents)));
+        metrics.stop(MeteredOperation.ADD_PRODUCT_TO_BASKET, start);
+    }
+
+    private List<Batch> reserve(Shop shop, String productId, int amount, ShopServiceImpl shopServiceImpl) {
+        if(amount > shopServiceImpl.getProductQuantity(shop, productId)) {
+            metrics.failed(MeteredFailure.OUT_OF_STOCK);
+            throw new OutOfStockException("Not enough stock for product: " + productId);
+        }
 
-        for(Batch batch : stock) {
-            if(remaining > 0) {
-                basketItems.add(batch);
-                remaining -= batch.getQuantity();
-            }
-            else break;
+        return shopServiceImpl.reserveProduct(shop, productId, amount);
+    }
+
+    private static void addToBasket(Basket basket, String productId, List<Batch> batches) {
+        basket.getItems().computeIfAbsent(productId, k -> new PriorityQueue<>()).addAll(batches);
+    }
+
+    private static long getBasketPriceCents(Basket basket, PricingContext pricing) {
+        long totalCents = 0;
+        for (Map.Entry<String, PriorityQueue<Batch>> item : basket.getItems().entrySet()) {
+            totalCents = Math.addExact(totalCents, pricing.getBatchesPriceCents(item.getKey(), item.getValue()));
         }
+        return totalCents;
+    }
 
-        shopServiceImpl.removeProduct(shop, productId, amount);
+    private InsufficientFundsException insufficientFunds(BigDecimal budget, String productId) {
+        metrics.failed(MeteredFailure.INSUFFICIENT_FUNDS);
+        return new InsufficientFundsException("Customer budget of " + budget + " is insufficient for product: " + productId);
     }
 }
@@ -0,0 +1,226 @@
+package com.shop.service;
+
+import com.shop.model.Batch;
+import com.shop.model.BulkDelivery;
+import com.shop.model.ImportReport;
+import com.shop.model.Shop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a delivery manifest into a shop. The manifest is a UTF-8 text file with one
+ * {@code productId,arrivalDate,quantity} line per batch, dates in {@code yyyy-MM-dd} format and
+ * an optional header line. The file is read through a fixed buffer and parsed in place, and
+ * every {@code chunkLines} accepted lines are stocked with
+ * {@link ShopServiceImpl#processBulkDelivery}, so memory use does not grow with the file.
+ * Lines that cannot be parsed are counted and reported without stopping the import.
+ */
+public class DeliveryImporter {
+    private static final int DEFAULT_CHUNK_LINES = 50_000;
+    private static final int DEFAULT_BUFFER_BYTES = 1024 * 1024;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final String HEADER = "productId,arrivalDate,quantity";
+
+    private final ShopServiceImpl shopServiceImpl;
+    private final int chunkLines;
+    private final int bufferBytes;
+
+    public DeliveryImporter(ShopServiceImpl shopServiceImpl) {
+        this(shopServiceImpl, DEFAULT_CHUNK_LINES);
+    }
+
+    public DeliveryImporter(ShopServiceImpl shopServiceImpl, int chunkLines) {
+        this(shopServiceImpl, chunkLines, DEFAULT_BUFFER_BYTES);
+    }
+
+    DeliveryImporter(ShopServiceImpl shopServiceImpl, int chunkLines, int bufferBytes) {
+        this.shopServiceImpl = shopServiceImpl;
+        this.chunkLines = chunkLines;
+        this.bufferBytes = bufferBytes;
+    }
+
+    public ImportReport importDelivery(Shop shop, Path file) {
+        long start = System.nanoTime();
+        Import delivery = new Import(shop);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(bufferBytes);
+            byte[] bytes = buffer.array();
+            boolean skippingLongLine = false;
+
+            while (true) {
+                int read = channel.read(buffer);
+                if (read > 0) delivery.bytesRead += read;
+
+                int limit = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (bytes[i] != '\n') continue;
+                    if (skippingLongLine) skippingLongLine = false;
+                    else delivery.line(bytes, lineStart, i);
+                    lineStart = i + 1;
+                }
+
+                if (read == -1) {
+                    if (lineStart < limit && !skippingLongLine) delivery.line(bytes, lineStart, limit);
+                    break;
+                }
+                if (lineStart == 0 && limit == bytes.length) {
+                    if (!skippingLongLine) delivery.rejectLongLine(bytes.length);
+                    skippingLongLine = true;
+                    buffer.clear();
+                    continue;
+                }
+                System.arraycopy(bytes, lineStart, bytes, 0, limit - lineStart);
+                buffer.position(limit - lineStart);
+            }
+            delivery.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error importing delivery: " + e.getMessage(), e);
+        }
+
+        return new ImportReport(delivery.accepted, delivery.rejected, delivery.bytesRead,
+                Duration.ofNanos(System.nanoTime() - start), delivery.rejections);
+    }
+
+    private final class Import {
+        private final Shop shop;
+        private final List<String> rejections = new ArrayList<>();
+        private BulkDelivery chunk = new BulkDelivery();
+        private int chunkSize;
+        private long lineNumber;
+        private long accepted;
+        private long rejected;
+        private long bytesRead;
+        private int lastDateKey = -1;
+        private LocalDate lastDate;
+
+        private Import(Shop shop) {
+            this.shop = shop;
+        }
+
+        private void line(byte[] bytes, int from, int to) {
+            lineNumber++;
+            if (to > from && bytes[to - 1] == '\r') to--;
+            from = skipSpaces(bytes, from, to);
+            to = trimSpaces(bytes, from, to);
+            if (from == to) return;
+            if (lineNumber == 1 && HEADER.equalsIgnoreCase(text(bytes, from, to).replace(" ", ""))) return;
+
+            int firstComma = indexOf(bytes, ',', from, to);
+            int secondComma = firstComma < 0 ? -1 : indexOf(bytes, ',', firstComma + 1, to);
+            if (secondComma < 0) {
+                reject("expected " + HEADER + " but was '" + text(bytes, from, to) + "'");
+                return;
+            }
+
+            int idEnd = trimSpaces(bytes, from, firstComma);
+            if (idEnd == from) {
+                reject("missing product id");
+                return;
+            }
+            String productId = text(bytes, from, idEnd);
+
+            int dateFrom = skipSpaces(bytes, firstComma + 1, secondComma);
+            int dateTo = trimSpaces(bytes, dateFrom, secondComma);
+            int quantityFrom = skipSpaces(bytes, secondComma + 1, to);
+
+            LocalDate arrivalDate = parseDate(bytes, dateFrom, dateTo);
+            if (arrivalDate == null) {
+                reject("invalid arrival date '" + text(bytes, dateFrom, dateTo) + "'");
+                return;
+            }
+            int quantity = parseQuantity(bytes, quantityFrom, to);
+            if (quantity <= 0) {
+                reject("invalid quantity '" + text(bytes, quantityFrom, to) + "'");
+                return;
+            }
+
+            chunk.getProducts().computeIfAbsent(productId, k -> new ArrayList<>()).add(new Batch(arrivalDate, quantity));
+            accepted++;
+            if (++chunkSize >= chunkLines) flush();
+        }
+
+        private void rejectLongLine(int maxLength) {
+            lineNumber++;
+            reject("line longer than " + maxLength + " bytes");
+        }
+
+        private void reject(String reason) {
+            rejected++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) rejections.add("line " + lineNumber + ": " + reason);
+        }
+
+        private void flush() {
+            if (chunkSize == 0) return;
+            shopServiceImpl.processBulkDelivery(shop, chunk);
+            chunk = new BulkDelivery();
+            chunkSize = 0;
+        }
+
+        private LocalDate parseDate(byte[] bytes, int from, int to) {
+            if (to - from != 10 || bytes[from + 4] != '-' || bytes[from + 7] != '-') return null;
+            int year = digits(bytes, from, from + 4);
+            int month = digits(bytes, from + 5, from + 7);
+            int day = digits(bytes, from + 8, from + 10);
+            if (year < 0 || month < 0 || day < 0) return null;
+
+            int key = year * 10_000 + month * 100 + day;
+            if (key != lastDateKey) {
+                try {
+                    lastDate = LocalDate.of(year, month, day);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+                lastDateKey = key;
+            }
+            return lastDate;
+        }
+    }
+
+    private static int parseQuantity(byte[] bytes, int from, int to) {
+        return to - from > 10 ? -1 : digits(bytes, from, to);
+    }
+
+    private static int digits(byte[] bytes, int from, int to) {
+        if (from == to) return -1;
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) from++;
+        return from;
+    }
+
+    private static int trimSpaces(byte[] bytes, int from, int to) {
+        while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) to--;
+        return to;
+    }
+
+    private static String text(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+}
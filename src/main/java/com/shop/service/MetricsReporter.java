@@ -0,0 +1,46 @@
+package com.shop.service;
+
+import com.shop.model.MetricsSnapshot;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands a {@link MetricsSnapshot} to a consumer every {@code period} on a daemon thread,
+ * by default writing it to the {@code com.shop.metrics} logger at INFO.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger("com.shop.metrics");
+
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(ShopMetrics metrics, Duration period) {
+        this(metrics, period, snapshot -> LOGGER.info(snapshot::toString));
+    }
+
+    public MetricsReporter(ShopMetrics metrics, Duration period, Consumer<MetricsSnapshot> consumer) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = period.toNanos();
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                consumer.accept(metrics.snapshot());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Error reporting shop metrics", e);
+            }
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,73 @@
+package com.shop.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money arithmetic on amounts held as a {@code long} number of cents. Every operation
+ * rounds exactly like {@code setScale(2, RoundingMode.HALF_UP)} does on the equivalent
+ * {@link BigDecimal} expression, and falls back to {@link BigDecimal} if the long
+ * arithmetic would overflow, so callers get identical results without the allocations.
+ */
+final class Money {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private Money() {
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Whole cents of an amount that may carry fractions of a cent, such as a budget, dropping
+     * the fraction so the amount is never rounded up past what is there.
+     */
+    static long toCentsRoundedDown(BigDecimal amount) {
+        return toCents(amount.setScale(2, RoundingMode.DOWN));
+    }
+
+    static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, (long) quantity);
+    }
+
+    static long multiply(BigDecimal amount, BigDecimal factor) {
+        try {
+            long product = Math.multiplyExact(toCents(amount), factor.unscaledValue().longValueExact());
+            int scale = factor.scale();
+            if (scale <= 0) return Math.multiplyExact(product, powerOfTen(-scale));
+            return divideHalfUp(product, powerOfTen(scale));
+        } catch (ArithmeticException e) {
+            return toCents(amount.multiply(factor).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    static BigDecimal subtract(BigDecimal minuend, BigDecimal subtrahend) {
+        try {
+            return toBigDecimal(Math.subtractExact(toCents(minuend), toCents(subtrahend)));
+        } catch (ArithmeticException e) {
+            return minuend.subtract(subtrahend).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder >= divisor - remainder) quotient += Long.signum(dividend);
+        return quotient;
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) throw new ArithmeticException("Scale too large: " + exponent);
+        return POWERS_OF_TEN[exponent];
+    }
+}
@@ -0,0 +1,188 @@
+package com.shop.service;
+
+import com.shop.exception.OutOfStockException;
+import com.shop.exception.ProductNotFoundException;
+import com.shop.model.*;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * ShopServiceImpl with stock kept in a {@link PackedStock} per shop instead of the shop's
+ * {@code stockBatches}: a batch costs one long in a primitive heap rather than a Batch, a
+ * LocalDate and a queue slot. Every other operation is inherited, and stock events, metrics
+ * and the error behaviour of the stock operations are the same.
+ *
+ * <p>The packed stock belongs to this service, so {@code Shop.getStockBatches()} stays empty for
+ * shops it manages and ShopSnapshot does not see their stock. {@link #getStockBatches} copies
+ * a shop's stock out in the usual form.
+ */
+public class PackedShopServiceImpl extends ShopServiceImpl {
+    private final WeakKeyMap<Shop, PackedStock> stocks = new WeakKeyMap<>();
+    private final ShopMetrics metrics = ShopMetrics.global();
+
+    @Override
+    public void clearExpiredFoods(Shop shop, ProductCatalog productCatalog) {
+        long start = metrics.start();
+        PackedStock stock = getStock(shop);
+        Map<String, Product> products = productCatalog.getProductCatalog();
+        long today = DateWrapper.currentDate().toEpochDay();
+
+        for (int id = 0; id < stock.productCount(); id++) {
+            PackedStock.ProductStock productStock = stock.product(id);
+            if (!(products.get(productStock.productId()) instanceof PerishableProduct perishable)) continue;
+
+            long expiredBefore = today - perishable.getExpirationDays();
+            synchronized (productStock) {
+                while (!productStock.isEmpty() && productStock.peek() >> 32 < expiredBefore) {
+                    long expired = productStock.poll();
+                    stockChanged(shop, StockEventType.EXPIRED, productStock.productId(),
+                            PackedStock.arrivalDate(expired), PackedStock.quantity(expired));
+                }
+            }
+        }
+        metrics.stop(MeteredOperation.CLEAR_EXPIRED_FOODS, start);
+    }
+
+    @Override
+    public void addProduct(Shop shop, String productId, int amount, LocalDate arrivalDate) {
+        PackedStock.ProductStock productStock = getStock(shop).getOrCreate(productId);
+        synchronized (productStock) {
+            productStock.add(PackedStock.pack(arrivalDate, amount));
+            stockChanged(shop, StockEventType.ADDED, productId, arrivalDate, amount);
+        }
+    }
+
+    @Override
+    public void removeProduct(Shop shop, String productId, int amount) {
+        long start = metrics.start();
+        takeProduct(shop, productId, amount, StockEventType.REMOVED);
+        metrics.stop(MeteredOperation.REMOVE_PRODUCT, start);
+    }
+
+    @Override
+    public List<Batch> reserveProduct(Shop shop, String productId, int amount) {
+        return takeProduct(shop, productId, amount, StockEventType.RESERVED);
+    }
+
+    @Override
+    public void releaseProduct(Shop shop, String productId, Collection<Batch> batches) {
+        PackedStock.ProductStock productStock = getStock(shop).getOrCreate(productId);
+        synchronized (productStock) {
+            for (Batch batch : batches) {
+                productStock.add(PackedStock.pack(batch.getArrivalDate(), batch.getQuantity()));
+                stockChanged(shop, StockEventType.RELEASED, productId, batch.getArrivalDate(), batch.getQuantity());
+            }
+        }
+    }
+
+    @Override
+    public void sellProduct(Shop shop, String productId, Collection<Batch> batches) {
+        PackedStock.ProductStock productStock = getStock(shop).getOrCreate(productId);
+        synchronized (productStock) {
+            stockChanged(shop, StockEventType.SOLD, productId, null, quantity(batches));
+        }
+    }
+
+    @Override
+    public int getProductQuantity(Shop shop, String productId) {
+        PackedStock.ProductStock productStock = getStock(shop).get(productId);
+        if (productStock == null) throw new ProductNotFoundException("Product not found");
+
+        long quantity;
+        synchronized (productStock) {
+            quantity = productStock.totalQuantity();
+        }
+        if (quantity == 0) throw new ProductNotFoundException("Product not found");
+        return Math.toIntExact(quantity);
+    }
+
+    @Override
+    public void processBulkDelivery(Shop shop, BulkDelivery delivery) {
+        long start = metrics.start();
+        PackedStock stock = getStock(shop);
+        for (String productId : delivery.getProducts().keySet()) {
+            stock.getOrCreate(productId);
+        }
+
+        delivery.getProducts().entrySet().parallelStream().forEach(entry -> {
+            long[] batches = new long[entry.getValue().size()];
+            for (int i = 0; i < batches.length; i++) {
+                Batch batch = entry.getValue().get(i);
+                batches[i] = PackedStock.pack(batch.getArrivalDate(), batch.getQuantity());
+            }
+            int count = mergeByArrivalDate(batches);
+            if (count == 0) return;
+
+            PackedStock.ProductStock productStock = stock.get(entry.getKey());
+            synchronized (productStock) {
+                productStock.addAll(batches, count);
+                for (int i = 0; i < count; i++) {
+                    stockChanged(shop, StockEventType.ADDED, entry.getKey(),
+                            PackedStock.arrivalDate(batches[i]), PackedStock.quantity(batches[i]));
+                }
+            }
+        });
+        metrics.stop(MeteredOperation.PROCESS_BULK_DELIVERY, start);
+    }
+
+    public Map<String, PriorityQueue<Batch>> getStockBatches(Shop shop) {
+        PackedStock stock = getStock(shop);
+        Map<String, PriorityQueue<Batch>> stockBatches = new HashMap<>();
+        for (int id = 0; id < stock.productCount(); id++) {
+            PackedStock.ProductStock productStock = stock.product(id);
+            long[] batches;
+            synchronized (productStock) {
+                batches = productStock.batches();
+            }
+            PriorityQueue<Batch> queue = new PriorityQueue<>(Math.max(batches.length, 1));
+            for (long batch : batches) {
+                queue.add(new Batch(PackedStock.arrivalDate(batch), PackedStock.quantity(batch)));
+            }
+            stockBatches.put(productStock.productId(), queue);
+        }
+        return stockBatches;
+    }
+
+    private List<Batch> takeProduct(Shop shop, String productId, int amount, StockEventType eventType) {
+        PackedStock.ProductStock productStock = getStock(shop).get(productId);
+        if (productStock == null) throw new ProductNotFoundException("Product not found");
+
+        synchronized (productStock) {
+            if (productStock.isEmpty()) throw new ProductNotFoundException("Product not found");
+            if (productStock.totalQuantity() < amount) {
+                metrics.failed(MeteredFailure.OUT_OF_STOCK);
+                throw new OutOfStockException("Not enough stock for product: " + productId);
+            }
+
+            List<Batch> taken = new ArrayList<>();
+            productStock.take(amount, taken);
+            stockChanged(shop, eventType, productId, null, amount);
+            return taken;
+        }
+    }
+
+    private PackedStock getStock(Shop shop) {
+        return stocks.computeIfAbsent(shop, k -> new PackedStock());
+    }
+
+    /**
+     * Sorts packed batches and sums the quantities of those with the same arrival date into
+     * the first of them. Returns the number of merged batches, which are at the front.
+     */
+    private static int mergeByArrivalDate(long[] batches) {
+        if (batches.length == 0) return 0;
+        Arrays.sort(batches);
+
+        int count = 0;
+        for (int i = 1; i < batches.length; i++) {
+            if (batches[i] >> 32 == batches[count] >> 32) {
+                batches[count] = PackedStock.pack(PackedStock.arrivalDate(batches[count]),
+                        Math.addExact(PackedStock.quantity(batches[count]), PackedStock.quantity(batches[i])));
+            } else {
+                batches[++count] = batches[i];
+            }
+        }
+        return count + 1;
+    }
+}
@@ -0,0 +1,170 @@
+package com.shop.service;
+
+import com.shop.model.Batch;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shop's stock held without a heap object per batch. Product ids are interned to ints
+ * that index an array of {@link ProductStock}s, and every batch is a single long holding the
+ * arrival epoch day in the high half and the quantity in the low half. Ordering those longs
+ * orders the batches by arrival date, so each product keeps them in a primitive binary
+ * min-heap. A product's heap and quantity are guarded by its {@link ProductStock} instance.
+ */
+final class PackedStock {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile ProductStock[] products = new ProductStock[16];
+    private int productCount;
+
+    ProductStock get(String productId) {
+        Integer id = ids.get(productId);
+        return id != null ? products[id] : null;
+    }
+
+    ProductStock getOrCreate(String productId) {
+        Integer id = ids.get(productId);
+        if (id != null) return products[id];
+
+        synchronized (this) {
+            id = ids.get(productId);
+            if (id != null) return products[id];
+
+            ProductStock[] current = products;
+            if (productCount == current.length) current = Arrays.copyOf(current, current.length * 2);
+            ProductStock product = new ProductStock(productId);
+            current[productCount] = product;
+            products = current;
+            ids.put(productId, productCount++);
+            return product;
+        }
+    }
+
+    int productCount() {
+        return ids.size();
+    }
+
+    ProductStock product(int id) {
+        return products[id];
+    }
+
+    static long pack(LocalDate arrivalDate, int quantity) {
+        return (arrivalDate.toEpochDay() << 32) | (quantity & 0xFFFFFFFFL);
+    }
+
+    static LocalDate arrivalDate(long batch) {
+        return LocalDate.ofEpochDay(batch >> 32);
+    }
+
+    static int quantity(long batch) {
+        return (int) batch;
+    }
+
+    static final class ProductStock {
+        private final String productId;
+        private long[] heap = new long[4];
+        private int size;
+        private long quantity;
+
+        private ProductStock(String productId) {
+            this.productId = productId;
+        }
+
+        String productId() {
+            return productId;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long totalQuantity() {
+            return quantity;
+        }
+
+        long peek() {
+            return heap[0];
+        }
+
+        void add(long batch) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            heap[size] = batch;
+            siftUp(size++);
+            quantity += quantity(batch);
+        }
+
+        void addAll(long[] batches, int count) {
+            if (size + count > heap.length) heap = Arrays.copyOf(heap, Math.max(heap.length * 2, size + count));
+            for (int i = 0; i < count; i++) {
+                heap[size++] = batches[i];
+                quantity += quantity(batches[i]);
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        long poll() {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            if (size > 0) siftDown(0);
+            quantity -= quantity(top);
+            return top;
+        }
+
+        /**
+         * Takes {@code amount} units from the oldest batches into {@code taken}, splitting the
+         * last batch if needed. The caller has checked that there is enough quantity.
+         */
+        void take(int amount, List<Batch> taken) {
+            int remaining = amount;
+            while (remaining > 0) {
+                long top = heap[0];
+                int batchQuantity = quantity(top);
+                if (batchQuantity > remaining) {
+                    heap[0] = top - remaining;
+                    quantity -= remaining;
+                    taken.add(new Batch(arrivalDate(top), remaining));
+                    remaining = 0;
+                } else {
+                    poll();
+                    remaining -= batchQuantity;
+                    taken.add(new Batch(arrivalDate(top), batchQuantity));
+                }
+            }
+        }
+
+        long[] batches() {
+            long[] batches = Arrays.copyOf(heap, size);
+            Arrays.sort(batches);
+            return batches;
+        }
+
+        private void siftUp(int index) {
+            long batch = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] <= batch) break;
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = batch;
+        }
+
+        private void siftDown(int index) {
+            long batch = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (batch <= heap[child]) break;
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = batch;
+        }
+    }
+}
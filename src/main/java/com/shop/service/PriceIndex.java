@@ -0,0 +1,55 @@
+package com.shop.service;
+
+import com.shop.model.Product;
+import com.shop.model.Shop;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Final regular and near-expiry prices per product. An entry remembers the base price,
+ * category markup and discount it was computed from and is rebuilt only when one of them
+ * has been replaced, so a price change, a markup change or new discount settings each
+ * invalidate exactly the entries that depend on them.
+ *
+ * <p>Entries are kept per shop, since shops served by the same service can have different
+ * markups and discounts. Shops are held weakly, so a shop that is no longer used elsewhere
+ * takes its entries with it.
+ */
+class PriceIndex {
+    private final WeakKeyMap<Shop, Map<String, Entry>> entries = new WeakKeyMap<>();
+
+    Entry get(Shop shop, String productId, Product product) {
+        BigDecimal basePrice = product.getPrice();
+        BigDecimal markup = shop.getMarkupPercentage().get(product.getCategory());
+        BigDecimal discount = shop.getDiscountPercentage();
+
+        Map<String, Entry> shopEntries = entries.computeIfAbsent(shop, k -> new ConcurrentHashMap<>());
+        Entry entry = shopEntries.get(productId);
+        if (entry == null || !entry.isComputedFrom(product, basePrice, markup, discount)) {
+            entry = Entry.compute(product, basePrice, markup, discount);
+            shopEntries.put(productId, entry);
+        }
+        return entry;
+    }
+
+    record Entry(Product product, BigDecimal basePrice, BigDecimal markup, BigDecimal discount,
+                 BigDecimal regularPrice, BigDecimal discountedPrice) {
+
+        static Entry compute(Product product, BigDecimal basePrice, BigDecimal markup, BigDecimal discount) {
+            BigDecimal markupFactor = markup.add(BigDecimal.ONE);
+            long regularCents = Money.multiply(basePrice, markupFactor);
+            long discountedCents = discount == null
+                    ? regularCents
+                    : Money.multiply(basePrice, markupFactor.multiply(BigDecimal.ONE.subtract(discount)));
+            return new Entry(product, basePrice, markup, discount,
+                    Money.toBigDecimal(regularCents), Money.toBigDecimal(discountedCents));
+        }
+
+        boolean isComputedFrom(Product product, BigDecimal basePrice, BigDecimal markup, BigDecimal discount) {
+            return this.product == product && this.basePrice == basePrice
+                    && this.markup == markup && this.discount == discount;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.shop.service;
+
+import com.shop.model.*;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prices seen by a single checkout. On a given day a product can only have two prices,
+ * regular and near-expiry, so each one is asked from the shop once and then reused for
+ * every batch in the basket. Amounts are kept in cents, see {@link Money}.
+ */
+class PricingContext {
+    private final ShopServiceImpl shopServiceImpl;
+    private final Shop shop;
+    private final ProductCatalog productCatalog;
+    private final Map<String, Product> products;
+    private final LocalDate today;
+    private final LocalDate discountFrom;
+    private final Map<String, Long> regularPrices = new HashMap<>();
+    private final Map<String, Long> discountedPrices = new HashMap<>();
+
+    PricingContext(ShopServiceImpl shopServiceImpl, Shop shop, ProductCatalog productCatalog) {
+        this.shopServiceImpl = shopServiceImpl;
+        this.shop = shop;
+        this.productCatalog = productCatalog;
+        this.products = productCatalog.getProductCatalog();
+        this.today = DateWrapper.currentDate();
+        this.discountFrom = today.plusDays(shop.getDaysBeforeExpityDiscount());
+    }
+
+    long getBatchesPriceCents(String productId, Collection<Batch> batches) {
+        Product product = products.get(productId);
+
+        long total = 0;
+        for (Batch batch : batches) {
+            LocalDate expirationDate = getExpirationDate(product, batch);
+            total = Math.addExact(total, Money.times(getPriceCents(productId, expirationDate), batch.getQuantity()));
+        }
+        return total;
+    }
+
+    LocalDate getToday() {
+        return today;
+    }
+
+    long getUnitPriceCents(String productId, Batch batch) {
+        return getPriceCents(productId, getExpirationDate(products.get(productId), batch));
+    }
+
+    long getLowestPriceCents(String productId) {
+        return Math.min(getPriceCents(productId, LocalDate.MIN), getPriceCents(productId, LocalDate.MAX));
+    }
+
+    long getPriceCents(String productId, LocalDate expirationDate) {
+        Map<String, Long> prices = expirationDate.isBefore(discountFrom) ? discountedPrices : regularPrices;
+
+        Long price = prices.get(productId);
+        if (price == null) {
+            price = Money.toCents(shopServiceImpl.getProductPrice(shop, productCatalog, productId, expirationDate));
+            prices.put(productId, price);
+        }
+        return price;
+    }
+
+    private LocalDate getExpirationDate(Product product, Batch batch) {
+        if (product instanceof PerishableProduct perishableProduct) {
+            return batch.getArrivalDate().plusDays(perishableProduct.getExpirationDays());
+        }
+        return today;
+    }
+}
@@ -0,0 +1,265 @@
+package com.shop.service;
+
+import com.shop.model.Receipt;
+import com.shop.model.ReceiptLine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Versioned binary form of a {@link Receipt}:
+ * <pre>
+ *   byte    version
+ *   byte    flags, one bit per field that is present plus the id and total encodings
+ *   id      two longs when it is a canonical UUID, otherwise a string
+ *   string  cashier name
+ *   varint  date as zig-zag epoch day
+ *   varint  item count, then per item a string product id and a zig-zag varint quantity
+ *   total   zig-zag varint unscaled value and zig-zag varint scale, or the unscaled
+ *           value's two's-complement bytes when it does not fit in a long
+ *   varint  line count, then per line a string product id, a zig-zag varint quantity and
+ *           the unit price as a varint length, two's-complement unscaled bytes and zig-zag varint scale
+ * </pre>
+ * Strings are a varint byte length followed by UTF-8. The first byte never collides with
+ * a Java serialization stream, which starts with 0xAC, so both can share one store.
+ */
+public final class ReceiptCodec {
+    static final byte VERSION = 1;
+
+    private static final int HAS_ID = 1;
+    private static final int UUID_ID = 1 << 1;
+    private static final int HAS_CASHIER = 1 << 2;
+    private static final int HAS_DATE = 1 << 3;
+    private static final int HAS_ITEMS = 1 << 4;
+    private static final int HAS_TOTAL = 1 << 5;
+    private static final int BIG_TOTAL = 1 << 6;
+    private static final int HAS_LINES = 1 << 7;
+
+    private ReceiptCodec() {
+    }
+
+    public static boolean isEncoded(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == VERSION;
+    }
+
+    public static byte[] encode(Receipt receipt) {
+        Output out = new Output(64 + (receipt.getItems() == null ? 0 : receipt.getItems().size() * 16));
+        UUID uuid = parseUuid(receipt.getId());
+        BigDecimal total = receipt.getTotal();
+        BigInteger unscaledTotal = total != null ? total.unscaledValue() : null;
+        boolean bigTotal = unscaledTotal != null && unscaledTotal.bitLength() > 63;
+
+        int flags = (receipt.getId() != null ? HAS_ID : 0)
+                | (uuid != null ? UUID_ID : 0)
+                | (receipt.getCashierName() != null ? HAS_CASHIER : 0)
+                | (receipt.getDate() != null ? HAS_DATE : 0)
+                | (receipt.getItems() != null ? HAS_ITEMS : 0)
+                | (total != null ? HAS_TOTAL : 0)
+                | (bigTotal ? BIG_TOTAL : 0)
+                | (receipt.getLines() != null ? HAS_LINES : 0);
+
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (receipt.getId() != null) {
+            out.writeString(receipt.getId());
+        }
+        if (receipt.getCashierName() != null) out.writeString(receipt.getCashierName());
+        if (receipt.getDate() != null) out.writeSignedVarLong(receipt.getDate().toEpochDay());
+        if (receipt.getItems() != null) {
+            out.writeVarLong(receipt.getItems().size());
+            for (Map.Entry<String, Integer> item : receipt.getItems().entrySet()) {
+                out.writeString(item.getKey());
+                out.writeSignedVarLong(item.getValue());
+            }
+        }
+        if (bigTotal) {
+            byte[] unscaled = unscaledTotal.toByteArray();
+            out.writeVarLong(unscaled.length);
+            out.writeBytes(unscaled);
+            out.writeSignedVarLong(total.scale());
+        } else if (total != null) {
+            out.writeSignedVarLong(unscaledTotal.longValue());
+            out.writeSignedVarLong(total.scale());
+        }
+        if (receipt.getLines() != null) {
+            out.writeVarLong(receipt.getLines().size());
+            for (ReceiptLine line : receipt.getLines()) {
+                out.writeString(line.getProductId());
+                out.writeSignedVarLong(line.getQuantity());
+                byte[] unscaled = line.getUnitPrice().unscaledValue().toByteArray();
+                out.writeVarLong(unscaled.length);
+                out.writeBytes(unscaled);
+                out.writeSignedVarLong(line.getUnitPrice().scale());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static Receipt decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        byte version = in.readByte();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported receipt format version: " + version);
+        int flags = in.readByte() & 0xFF;
+
+        Receipt receipt = new Receipt();
+        if ((flags & UUID_ID) != 0) {
+            receipt.setId(new UUID(in.readLong(), in.readLong()).toString());
+        } else if ((flags & HAS_ID) != 0) {
+            receipt.setId(in.readString());
+        }
+        if ((flags & HAS_CASHIER) != 0) receipt.setCashierName(in.readString());
+        if ((flags & HAS_DATE) != 0) receipt.setDate(LocalDate.ofEpochDay(in.readSignedVarLong()));
+        if ((flags & HAS_ITEMS) != 0) {
+            int count = (int) in.readVarLong();
+            Map<String, Integer> items = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                items.put(in.readString(), (int) in.readSignedVarLong());
+            }
+            receipt.setItems(items);
+        }
+        if ((flags & BIG_TOTAL) != 0) {
+            BigInteger unscaled = new BigInteger(in.readBytes((int) in.readVarLong()));
+            receipt.setTotal(new BigDecimal(unscaled, (int) in.readSignedVarLong()));
+        } else if ((flags & HAS_TOTAL) != 0) {
+            long unscaled = in.readSignedVarLong();
+            receipt.setTotal(BigDecimal.valueOf(unscaled, (int) in.readSignedVarLong()));
+        }
+        if ((flags & HAS_LINES) != 0) {
+            int count = (int) in.readVarLong();
+            List<ReceiptLine> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String productId = in.readString();
+                int quantity = (int) in.readSignedVarLong();
+                BigInteger unscaled = new BigInteger(in.readBytes((int) in.readVarLong()));
+                lines.add(new ReceiptLine(productId, quantity, new BigDecimal(unscaled, (int) in.readSignedVarLong())));
+            }
+            receipt.setLines(lines);
+        }
+        return receipt;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint in receipt");
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        byte[] readBytes(int length) {
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.shop.service;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only store of receipt records split into numbered segment files. Each record is
+ * written as
+ * <pre>
+ *   int   length of everything after this field
+ *   int   CRC32C of the payload
+ *   short id length, then the id in UTF-8
+ *   byte[] payload
+ * </pre>
+ * The in-memory index maps a receipt id to its segment and offset, so a lookup is one
+ * positioned read. On open the index is rebuilt with the same buffered pass over the records
+ * that {@link #scan} uses, and a record cut short by a crash at the end of the last segment is
+ * truncated away. {@link #scan} streams a segment's records in file order for readers that want
+ * every receipt rather than a lookup. Appends are serialized with a {@link ReentrantLock} rather
+ * than a monitor, so virtual threads waiting to append unmount from their carrier threads.
+ *
+ * <p>Appends go through a {@link RandomAccessFile}, which an interrupt cannot close. Lookups and
+ * scans use a read-only FileChannel per segment; if an interrupted reader closes one, the reader
+ * fails and the channel is reopened for everyone else.
+ */
+public class ReceiptJournal implements AutoCloseable {
+    private static final int SEGMENT_MAGIC = 0x52434A31;
+    private static final int SEGMENT_HEADER_BYTES = Integer.BYTES;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Integer.BYTES + Short.BYTES;
+    private static final String SEGMENT_PREFIX = "receipts-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int SCAN_BUFFER_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private int currentSegment;
+    private RandomAccessFile current;
+    private long currentSize;
+
+    public ReceiptJournal(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        try {
+            Files.createDirectories(directory);
+            for (int segment : listSegments()) {
+                openSegment(segment);
+            }
+            if (segments.isEmpty()) startSegment(1);
+            else resumeSegment();
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening receipt journal: " + e.getMessage());
+        }
+    }
+
+    public void append(String receiptId, byte[] payload) {
+        byte[] id = receiptId.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + id.length + payload.length;
+
+        writeLock.lock();
+        try {
+            if (currentSize + recordBytes > maxSegmentBytes && currentSize > SEGMENT_HEADER_BYTES) {
+                current.getFD().sync();
+                current.close();
+                startSegment(currentSegment + 1);
+            }
+
+            int checksum = checksum(payload);
+            ByteBuffer record = ByteBuffer.allocate(recordBytes);
+            record.putInt(recordBytes - Integer.BYTES);
+            record.putInt(checksum);
+            record.putShort((short) id.length);
+            record.put(id);
+            record.put(payload);
+
+            long offset = currentSize;
+            current.seek(offset);
+            current.write(record.array());
+            currentSize += recordBytes;
+            index.put(receiptId, new Location(currentSegment, offset + RECORD_HEADER_BYTES + id.length, payload.length, checksum));
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending receipt " + receiptId + ": " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void force() {
+        writeLock.lock();
+        try {
+            current.getFD().sync();
+        } catch (IOException e) {
+            throw new RuntimeException("Error syncing receipt journal: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean contains(String receiptId) {
+        return index.containsKey(receiptId);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Set<String> receiptIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public byte[] read(String receiptId) {
+        Location location = index.get(receiptId);
+        if (location == null) return null;
+
+        try {
+            ByteBuffer payload = ByteBuffer.allocate(location.length());
+            readFully(segments.get(location.segment()), payload, location.offset());
+            if (checksum(payload.array()) != location.checksum()) {
+                throw new IOException("Checksum mismatch in segment " + location.segment());
+            }
+            return payload.array();
+        } catch (ClosedChannelException e) {
+            reopenSegment(location.segment());
+            throw new RuntimeException("Error reading receipt " + receiptId + ": segment channel was closed");
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading receipt " + receiptId + ": " + e.getMessage());
+        }
+    }
+
+    public List<Integer> segmentNumbers() {
+        List<Integer> numbers = new ArrayList<>(segments.keySet());
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    public long segmentEnd(int segment) {
+        writeLock.lock();
+        try {
+            if (segment == currentSegment) return currentSize;
+            return segments.get(segment).size();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading receipt journal: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Passes the id and payload of every record stored between {@code from} and {@code to} of a
+     * segment to {@code records}, in file order. {@code from} must be the start of a record or 0
+     * for the start of the segment, and {@code to} a value returned by {@link #segmentEnd}.
+     * Returns the position after the last record, from which a later scan can continue.
+     */
+    public long scan(int segment, long from, long to, BiConsumer<String, byte[]> records) {
+        try {
+            long position = forEachRecord(segments.get(segment), from, to, (buffer, offset, recordPosition, recordBytes, idLength) -> {
+                int checksum = buffer.getInt(offset + Integer.BYTES);
+                int payloadOffset = offset + RECORD_HEADER_BYTES + idLength;
+                String receiptId = new String(buffer.array(), offset + RECORD_HEADER_BYTES, idLength, StandardCharsets.UTF_8);
+                byte[] payload = Arrays.copyOfRange(buffer.array(), payloadOffset, offset + recordBytes);
+                if (checksum(payload) != checksum) throw new IOException("Checksum mismatch in segment " + segment);
+
+                records.accept(receiptId, payload);
+            });
+            if (position + RECORD_HEADER_BYTES <= to) throw new IOException("Corrupt or truncated record in segment " + segment);
+            return position;
+        } catch (ClosedChannelException e) {
+            reopenSegment(segment);
+            throw new RuntimeException("Error scanning receipt journal: segment channel was closed");
+        } catch (IOException e) {
+            throw new RuntimeException("Error scanning receipt journal: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            current.getFD().sync();
+            current.close();
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing receipt journal: " + e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void openSegment(int segment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+        long size = channel.size();
+
+        if (size >= SEGMENT_HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != SEGMENT_MAGIC) throw new IOException("Not a receipt journal segment: " + segmentPath(segment));
+        }
+
+        long end = forEachRecord(channel, 0, size, (buffer, offset, position, recordBytes, idLength) -> {
+            String receiptId = new String(buffer.array(), offset + RECORD_HEADER_BYTES, idLength, StandardCharsets.UTF_8);
+            long payloadOffset = position + RECORD_HEADER_BYTES + idLength;
+            index.put(receiptId, new Location(segment, payloadOffset, recordBytes - RECORD_HEADER_BYTES - idLength,
+                    buffer.getInt(offset + Integer.BYTES)));
+        });
+        if (size < SEGMENT_HEADER_BYTES || end < size) {
+            try (RandomAccessFile file = new RandomAccessFile(segmentPath(segment).toFile(), "rw")) {
+                file.setLength(Math.min(end, size));
+                if (size < SEGMENT_HEADER_BYTES) writeSegmentHeader(file);
+            }
+        }
+
+        segments.put(segment, channel);
+        currentSegment = segment;
+    }
+
+    private void resumeSegment() throws IOException {
+        current = new RandomAccessFile(segmentPath(currentSegment).toFile(), "rw");
+        currentSize = current.length();
+    }
+
+    private void startSegment(int segment) throws IOException {
+        current = new RandomAccessFile(segmentPath(segment).toFile(), "rw");
+        writeSegmentHeader(current);
+        currentSize = SEGMENT_HEADER_BYTES;
+        currentSegment = segment;
+        segments.put(segment, FileChannel.open(segmentPath(segment), StandardOpenOption.READ));
+    }
+
+    private void reopenSegment(int segment) {
+        segments.computeIfPresent(segment, (k, channel) -> {
+            if (channel.isOpen()) return channel;
+            try {
+                return FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reopening receipt journal segment " + segment + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Walks the records stored between {@code from} and {@code to} of a segment in large reads,
+     * passing each complete record to {@code handler} while it is still in the buffer. Stops at
+     * {@code to} or at the first record that is corrupt or runs past {@code to}, and returns
+     * the position where it stopped.
+     */
+    private static long forEachRecord(FileChannel channel, long from, long to, RecordHandler handler) throws IOException {
+        long position = Math.max(from, SEGMENT_HEADER_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER_BYTES, Math.max(to - position, RECORD_HEADER_BYTES)));
+
+        while (position + RECORD_HEADER_BYTES <= to) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), to - position));
+            readFully(channel, buffer, position);
+
+            int offset = 0;
+            while (offset + RECORD_HEADER_BYTES <= buffer.limit()) {
+                int length = buffer.getInt(offset);
+                int idLength = buffer.getShort(offset + 2 * Integer.BYTES);
+                if (idLength < 0 || length < RECORD_HEADER_BYTES - Integer.BYTES + idLength || length > Integer.MAX_VALUE - Integer.BYTES) {
+                    return position + offset;
+                }
+                int recordBytes = Integer.BYTES + length;
+                if (offset + recordBytes > buffer.limit()) break;
+
+                handler.record(buffer, offset, position + offset, recordBytes, idLength);
+                offset += recordBytes;
+            }
+
+            if (offset == 0) {
+                int recordBytes = Integer.BYTES + buffer.getInt(0);
+                if (recordBytes > to - position) return position;
+                buffer = ByteBuffer.allocate(recordBytes);
+            }
+            position += offset;
+        }
+        return position;
+    }
+
+    private static void writeSegmentHeader(RandomAccessFile file) throws IOException {
+        file.seek(0);
+        file.writeInt(SEGMENT_MAGIC);
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of segment");
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record Location(int segment, long offset, int length, int checksum) {
+    }
+
+    @FunctionalInterface
+    private interface RecordHandler {
+        void record(ByteBuffer buffer, int offset, long position, int recordBytes, int idLength) throws IOException;
+    }
+}
@@ -0,0 +1,125 @@
+package com.shop.service;
+
+import com.shop.model.ProductCatalog;
+import com.shop.model.Receipt;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Keeps receipts in a {@link ReceiptJournal} in the receipts directory, next to the
+ * human-readable text copies. Receipts are stored in the {@link ReceiptCodec} format.
+ * Java-serialized receipts written by earlier versions, as journal records or as one
+ * {@code .ser} file each, can still be loaded, and only receipt classes are accepted
+ * when reading them.
+ */
+public class ReceiptStore implements AutoCloseable {
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final ObjectInputFilter LEGACY_RECEIPT_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=10;com.shop.model.Receipt;com.shop.model.ReceiptLine;java.lang.*;java.math.*;java.time.*;java.util.*;!*");
+    private static final ThreadLocal<ReceiptTextRenderer> TEXT_RENDERERS = ThreadLocal.withInitial(ReceiptTextRenderer::new);
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private volatile boolean directoryCreated;
+    private volatile ReceiptJournal journal;
+
+    public ReceiptStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public ReceiptStore(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public void save(Receipt receipt) {
+        getJournal().append(receipt.getId(), ReceiptCodec.encode(receipt));
+    }
+
+    public void saveAsText(Receipt receipt, String cashierName, ProductCatalog productCatalog) {
+        try {
+            createDirectory();
+
+            try (FileChannel channel = FileChannel.open(textPath(receipt, cashierName),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                TEXT_RENDERERS.get().write(receipt, productCatalog, channel);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error saving receipt as text: " + e.getMessage());
+        }
+    }
+
+    public Receipt load(String receiptId) {
+        byte[] payload = getJournal().read(receiptId);
+
+        try {
+            if (payload != null && ReceiptCodec.isEncoded(payload)) return ReceiptCodec.decode(payload);
+            return readLegacy(payload != null
+                    ? new ByteArrayInputStream(payload)
+                    : Files.newInputStream(legacyReceiptPath(receiptId)));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            throw new RuntimeException("Error loading receipt: " + e.getMessage());
+        }
+    }
+
+    static Receipt readLegacy(InputStream in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(in)) {
+            ois.setObjectInputFilter(LEGACY_RECEIPT_FILTER);
+            return (Receipt) ois.readObject();
+        }
+    }
+
+    public void syncText(Receipt receipt, String cashierName) {
+        force(textPath(receipt, cashierName));
+    }
+
+    public void sync() {
+        getJournal().force();
+        ShopSnapshot.syncDirectory(directory);
+    }
+
+    public ReceiptJournal getJournal() {
+        ReceiptJournal opened = journal;
+        if (opened == null) {
+            synchronized (this) {
+                if (journal == null) journal = new ReceiptJournal(directory, maxSegmentBytes);
+                opened = journal;
+            }
+        }
+        return opened;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (journal != null) journal.close();
+    }
+
+    private void createDirectory() throws IOException {
+        if (directoryCreated) return;
+        Files.createDirectories(directory);
+        directoryCreated = true;
+    }
+
+    private Path legacyReceiptPath(String receiptId) {
+        return directory.resolve(receiptId + ".ser");
+    }
+
+    private Path textPath(Receipt receipt, String cashierName) {
+        return directory.resolve(cashierName + "_" + receipt.getId().substring(0, 4) + "_" +
+                receipt.getDate().format(FILE_DATE_FORMAT) + ".txt");
+    }
+
+    private static void force(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            throw new RuntimeException("Error syncing receipts: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.shop.service;
+
+import com.shop.model.Product;
+import com.shop.model.ProductCatalog;
+import com.shop.model.Receipt;
+import com.shop.model.ReceiptLine;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Renders the text copy of a receipt as UTF-8 straight into a reusable direct buffer and
+ * writes it to a channel in one go. Names and numbers are encoded character by character,
+ * so rendering does not create a String per line. Prices and totals are written from
+ * {@link BigDecimal#toString()}, which each value computes only once. Each line shows the
+ * unit price the product was sold at; receipts saved before those were kept show quantities
+ * only. An instance is not thread-safe; {@link ReceiptStore} keeps one per writing thread.
+ */
+final class ReceiptTextRenderer {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final byte[] HEADER = ascii("Receipt\n========\nCashier: ");
+    private static final byte[] DATE = ascii("\nDate: ");
+    private static final byte[] ITEMS = ascii("\nItems:\n");
+    private static final byte[] ITEM = ascii("- ");
+    private static final byte[] TIMES = ascii(" x ");
+    private static final byte[] AT = ascii(" @ ");
+    private static final byte[] EACH = ascii(" each\n");
+    private static final byte[] LINE_END = ascii("\n");
+    private static final byte[] TOTAL = ascii("\nTotal: $");
+    private static final byte[] FOOTER = ascii("\n========\n");
+
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+
+    void write(Receipt receipt, ProductCatalog productCatalog, WritableByteChannel channel) throws IOException {
+        render(receipt, productCatalog);
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    ByteBuffer render(Receipt receipt, ProductCatalog productCatalog) {
+        buffer.clear();
+        put(HEADER);
+        putString(receipt.getCashierName());
+        put(DATE);
+        putDate(receipt.getDate());
+        put(ITEMS);
+
+        Map<String, Product> products = productCatalog.getProductCatalog();
+        if (receipt.getLines() != null) {
+            for (ReceiptLine line : receipt.getLines()) {
+                putItem(products, line.getProductId(), line.getQuantity());
+                put(AT);
+                putString(String.valueOf(line.getUnitPrice()));
+                put(EACH);
+            }
+        } else {
+            for (Map.Entry<String, Integer> item : receipt.getItems().entrySet()) {
+                putItem(products, item.getKey(), item.getValue());
+                put(LINE_END);
+            }
+        }
+
+        put(TOTAL);
+        putString(String.valueOf(receipt.getTotal()));
+        put(FOOTER);
+        return buffer.flip();
+    }
+
+    private void putItem(Map<String, Product> products, String productId, int quantity) {
+        Product product = products.get(productId);
+        put(ITEM);
+        putString(product != null ? product.getName() : productId);
+        put(TIMES);
+        putInt(quantity);
+    }
+
+    private void put(byte[] bytes) {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putString(String value) {
+        if (value == null) value = "null";
+        int length = value.length();
+        ensureRemaining(3 * length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void putDate(LocalDate date) {
+        if (date == null || date.getYear() < 0 || date.getYear() > 9999) {
+            putString(String.valueOf(date));
+            return;
+        }
+        ensureRemaining(10);
+        putDigits(date.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putInt(int value) {
+        ensureRemaining(11);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long limit = 10; digits < 10 && remaining >= limit; limit *= 10) digits++;
+        putDigits(remaining, digits);
+    }
+
+    private void putDigits(long value, int digits) {
+        int end = buffer.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes) return;
+
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes) capacity *= 2;
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        grown.put(buffer.flip());
+        buffer = grown;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
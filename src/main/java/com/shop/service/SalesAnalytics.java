@@ -0,0 +1,110 @@
+package com.shop.service;
+
+import com.shop.model.Receipt;
+import com.shop.model.SalesReport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Sales figures over the receipts stored in a {@link ReceiptStore}'s journal. Receipts are
+ * aggregated into one rollup per day, and every report first scans only the records appended
+ * since the previous scan, reading the journal segments in parallel. Reports over old dates
+ * therefore never read the journal again. Receipts without a date are not counted, and neither
+ * are legacy {@code .ser} files that were never written to the journal.
+ */
+public class SalesAnalytics {
+    private final ReceiptStore receiptStore;
+    private final NavigableMap<LocalDate, DailySales> rollups = new TreeMap<>();
+    private final Map<Integer, Long> scannedTo = new HashMap<>();
+
+    public SalesAnalytics(ReceiptStore receiptStore) {
+        this.receiptStore = receiptStore;
+    }
+
+    public synchronized void refresh() {
+        ReceiptJournal journal = receiptStore.getJournal();
+        List<SegmentScan> scans = journal.segmentNumbers().parallelStream()
+                .map(segment -> scan(journal, segment))
+                .toList();
+
+        for (SegmentScan scan : scans) {
+            scan.days().forEach((date, sales) -> rollups.computeIfAbsent(date, k -> new DailySales()).addAll(sales));
+            scannedTo.put(scan.segment(), scan.end());
+        }
+    }
+
+    public synchronized SalesReport getReport(LocalDate from, LocalDate to) {
+        refresh();
+
+        DailySales total = new DailySales();
+        SortedMap<LocalDate, BigDecimal> revenueByDate = new TreeMap<>();
+        for (Map.Entry<LocalDate, DailySales> day : rollups.subMap(from, true, to, true).entrySet()) {
+            total.addAll(day.getValue());
+            revenueByDate.put(day.getKey(), day.getValue().revenue);
+        }
+        return new SalesReport(from, to, total.receiptCount, total.revenue, revenueByDate,
+                total.unitsByProduct, total.revenueByCashier);
+    }
+
+    public synchronized BigDecimal getRevenue(LocalDate from, LocalDate to) {
+        refresh();
+
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (DailySales day : rollups.subMap(from, true, to, true).values()) {
+            revenue = revenue.add(day.revenue);
+        }
+        return revenue;
+    }
+
+    private SegmentScan scan(ReceiptJournal journal, int segment) {
+        long from = scannedTo.getOrDefault(segment, 0L);
+        long to = journal.segmentEnd(segment);
+
+        Map<LocalDate, DailySales> days = new HashMap<>();
+        long end = journal.scan(segment, from, to, (receiptId, payload) -> {
+            Receipt receipt = decode(receiptId, payload);
+            if (receipt.getDate() != null) days.computeIfAbsent(receipt.getDate(), k -> new DailySales()).add(receipt);
+        });
+        return new SegmentScan(segment, end, days);
+    }
+
+    private static Receipt decode(String receiptId, byte[] payload) {
+        if (ReceiptCodec.isEncoded(payload)) return ReceiptCodec.decode(payload);
+        try {
+            return ReceiptStore.readLegacy(new ByteArrayInputStream(payload));
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error reading receipt " + receiptId + ": " + e.getMessage());
+        }
+    }
+
+    private record SegmentScan(int segment, long end, Map<LocalDate, DailySales> days) {
+    }
+
+    private static final class DailySales {
+        private long receiptCount;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private final Map<String, Long> unitsByProduct = new HashMap<>();
+        private final Map<String, BigDecimal> revenueByCashier = new HashMap<>();
+
+        private void add(Receipt receipt) {
+            BigDecimal total = receipt.getTotal() != null ? receipt.getTotal() : BigDecimal.ZERO;
+            receiptCount++;
+            revenue = revenue.add(total);
+            revenueByCashier.merge(receipt.getCashierName(), total, BigDecimal::add);
+            if (receipt.getItems() != null) {
+                receipt.getItems().forEach((productId, quantity) -> unitsByProduct.merge(productId, (long) quantity, Long::sum));
+            }
+        }
+
+        private void addAll(DailySales other) {
+            receiptCount += other.receiptCount;
+            revenue = revenue.add(other.revenue);
+            other.unitsByProduct.forEach((productId, units) -> unitsByProduct.merge(productId, units, Long::sum));
+            other.revenueByCashier.forEach((cashier, total) -> revenueByCashier.merge(cashier, total, BigDecimal::add));
+        }
+    }
+}
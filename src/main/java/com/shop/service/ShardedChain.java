@@ -0,0 +1,186 @@
+package com.shop.service;
+
+import com.shop.exception.ProductNotFoundException;
+import com.shop.model.Shop;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Partitions a chain's shops over shards. Each shard is a single thread that owns its shops:
+ * every change to a shop's stock is sent to that thread as a task, so a shop is never touched
+ * by two threads at once. Moving stock between shops of different shards reserves the batches
+ * on the source shard and hands them to the target shard as a message, keeping their arrival
+ * dates. Chain-wide queries are sent to every shard and their partial results combined.
+ *
+ * <p>Shops must be added with {@link #addShop} before they are used, and should not be changed
+ * directly afterwards.
+ */
+public class ShardedChain implements AutoCloseable {
+    private final ShopServiceImpl shopServiceImpl;
+    private final List<Shard> shards = new ArrayList<>();
+    private final Map<Shop, Shard> owners = new ConcurrentHashMap<>();
+
+    public ShardedChain(ShopServiceImpl shopServiceImpl, int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        this.shopServiceImpl = shopServiceImpl;
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(i));
+        }
+    }
+
+    public synchronized int addShop(Shop shop) {
+        Shard owner = owners.get(shop);
+        if (owner != null) return owner.index;
+
+        owner = shards.get(0);
+        for (Shard shard : shards) {
+            if (shard.shopCount < owner.shopCount) owner = shard;
+        }
+        owner.shopCount++;
+        owners.put(shop, owner);
+        Shard shard = owner;
+        owner.executor.execute(() -> shard.shops.add(shop));
+        return owner.index;
+    }
+
+    public int getShard(Shop shop) {
+        return ownerOf(shop).index;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public CompletableFuture<Void> addProduct(Shop shop, String productId, int amount, LocalDate arrivalDate) {
+        return CompletableFuture.runAsync(() -> shopServiceImpl.addProduct(shop, productId, amount, arrivalDate),
+                ownerOf(shop).executor);
+    }
+
+    public CompletableFuture<Void> removeProduct(Shop shop, String productId, int amount) {
+        return CompletableFuture.runAsync(() -> shopServiceImpl.removeProduct(shop, productId, amount),
+                ownerOf(shop).executor);
+    }
+
+    public CompletableFuture<Integer> getProductQuantity(Shop shop, String productId) {
+        return CompletableFuture.supplyAsync(() -> quantity(shop, productId), ownerOf(shop).executor);
+    }
+
+    /**
+     * Moves {@code amount} of a product from one shop to another, oldest batches first. If the
+     * source shop does not have enough, the returned future fails and neither shop changes. If
+     * the batches cannot be added to the target shop, they are put back into the source shop on
+     * its own shard before the future fails.
+     */
+    public CompletableFuture<Void> transferStock(Shop from, Shop to, String productId, int amount) {
+        Shard source = ownerOf(from);
+        Shard target = ownerOf(to);
+        return CompletableFuture.supplyAsync(() -> shopServiceImpl.reserveProduct(from, productId, amount), source.executor)
+                .thenCompose(batches -> CompletableFuture.runAsync(() -> shopServiceImpl.releaseProduct(to, productId, batches), target.executor)
+                        .exceptionallyComposeAsync(failure -> {
+                            try {
+                                shopServiceImpl.releaseProduct(from, productId, batches);
+                            } catch (RuntimeException e) {
+                                failure.addSuppressed(e);
+                            }
+                            return CompletableFuture.failedFuture(failure);
+                        }, source.executor));
+    }
+
+    public int getTotalQuantity(String productId) {
+        return scatter(shops -> {
+            int quantity = 0;
+            for (Shop shop : shops) {
+                quantity += quantity(shop, productId);
+            }
+            return quantity;
+        }).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public Map<String, Integer> getTotalQuantities(Collection<String> productIds) {
+        Map<String, Integer> totals = new HashMap<>();
+        for (Map<String, Integer> partial : scatter(shops -> {
+            Map<String, Integer> quantities = new HashMap<>();
+            for (String productId : productIds) {
+                int quantity = 0;
+                for (Shop shop : shops) {
+                    quantity += quantity(shop, productId);
+                }
+                quantities.put(productId, quantity);
+            }
+            return quantities;
+        })) {
+            partial.forEach((productId, quantity) -> totals.merge(productId, quantity, Integer::sum));
+        }
+        return totals;
+    }
+
+    public BigDecimal calculateCashierSalaries() {
+        return scatter(shops -> shops.stream()
+                .map(shopServiceImpl::calculateCashierSalaries)
+                .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor.close();
+        }
+    }
+
+    private int quantity(Shop shop, String productId) {
+        try {
+            return shopServiceImpl.getProductQuantity(shop, productId);
+        } catch (ProductNotFoundException e) {
+            return 0;
+        }
+    }
+
+    private <T> List<T> scatter(Function<List<Shop>, T> query) {
+        List<CompletableFuture<T>> parts = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            parts.add(CompletableFuture.supplyAsync(() -> query.apply(shard.shops), shard.executor));
+        }
+
+        List<T> results = new ArrayList<>(parts.size());
+        try {
+            for (CompletableFuture<T> part : parts) {
+                results.add(part.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new RuntimeException("Error querying shards: " + e.getCause().getMessage(), e.getCause());
+        }
+        return results;
+    }
+
+    private Shard ownerOf(Shop shop) {
+        Shard owner = owners.get(shop);
+        if (owner == null) throw new IllegalArgumentException("Shop is not part of the chain: " + shop.getName());
+        return owner;
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final ExecutorService executor;
+        private final List<Shop> shops = new ArrayList<>();
+        private int shopCount;
+
+        private Shard(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "shop-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.shop.service;
+
+import com.shop.model.LatencyStats;
+import com.shop.model.MeteredFailure;
+import com.shop.model.MeteredOperation;
+import com.shop.model.MetricsSnapshot;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Latency histograms per {@link MeteredOperation} and counters per {@link MeteredFailure},
+ * shared by the services through {@link #global()}. Metrics are off until enabled; while off,
+ * {@link #start} returns 0 without reading the clock and {@link #stop} and {@link #failed}
+ * return after one volatile read, so the instrumented code pays next to nothing. An operation
+ * started while metrics were off is not recorded even if they are switched on before it stops.
+ * Operations that end in an exception are not timed; the expected failures are counted instead.
+ */
+public class ShopMetrics implements ShopMetricsMXBean {
+    public static final String OBJECT_NAME = "com.shop:type=ShopMetrics";
+    private static final MeteredOperation[] OPERATIONS = MeteredOperation.values();
+    private static final MeteredFailure[] FAILURES = MeteredFailure.values();
+    private static final ShopMetrics GLOBAL = new ShopMetrics();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[] failures = new LongAdder[FAILURES.length];
+    private volatile boolean enabled;
+
+    public ShopMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+    }
+
+    public static ShopMetrics global() {
+        return GLOBAL;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(MeteredOperation operation, long start) {
+        if (start != 0L && enabled) latencies[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public void failed(MeteredFailure failure) {
+        if (enabled) failures[failure.ordinal()].increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<MeteredOperation, LatencyStats> stats = new EnumMap<>(MeteredOperation.class);
+        for (MeteredOperation operation : OPERATIONS) {
+            stats.put(operation, latencies[operation.ordinal()].stats());
+        }
+        Map<MeteredFailure, Long> counts = new EnumMap<>(MeteredFailure.class);
+        for (MeteredFailure failure : FAILURES) {
+            counts.put(failure, failures[failure.ordinal()].sum());
+        }
+        return new MetricsSnapshot(Instant.now(), stats, counts);
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        for (LongAdder counter : failures) {
+            counter.reset();
+        }
+    }
+
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // already registered, keep the existing bean
+        } catch (JMException e) {
+            throw new RuntimeException("Error registering shop metrics: " + e.getMessage());
+        }
+    }
+
+    public void unregisterMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new RuntimeException("Error unregistering shop metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (MeteredOperation operation : OPERATIONS) {
+            counts.put(operation.name(), latencies[operation.ordinal()].stats().getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        return micros(LatencyStats::getMeanNanos);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return micros(LatencyStats::getP99Nanos);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        return micros(LatencyStats::getMaxNanos);
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (MeteredFailure failure : FAILURES) {
+            counts.put(failure.name(), failures[failure.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    private Map<String, Double> micros(ToDoubleFunction<LatencyStats> nanos) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (MeteredOperation operation : OPERATIONS) {
+            values.put(operation.name(), nanos.applyAsDouble(latencies[operation.ordinal()].stats()) / 1000);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,21 @@
+package com.shop.service;
+
+import java.util.Map;
+
+public interface ShopMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    Map<String, Long> getFailureCounts();
+
+    void reset();
+}
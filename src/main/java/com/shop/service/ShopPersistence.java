@@ -0,0 +1,166 @@
+package com.shop.service;
+
+import com.shop.model.ProductCatalog;
+import com.shop.model.Shop;
+import com.shop.model.StockEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a shop recoverable across restarts with a snapshot of the shop and catalog plus a
+ * write-ahead log of the stock changes made since that snapshot. {@link #restore} loads the
+ * snapshot, replays the log and from then on logs every stock change ShopServiceImpl makes to
+ * the restored shop. {@link #checkpoint} writes a new snapshot and drops the log before it,
+ * which keeps the replay at the next start short.
+ *
+ * <p>Logs are numbered by generation. A checkpoint first starts the next generation, then
+ * writes a snapshot naming it, and only then deletes the older logs; restore replays only the
+ * logs from the snapshot's generation on. A crash anywhere in between therefore replays each
+ * change exactly once.
+ *
+ * <p>Only stock changes are logged. Changes to the shop's settings, desks or catalog are kept
+ * by the next checkpoint. Stock reserved into baskets is logged as removed, so baskets that
+ * were still open at a crash are not returned to stock. A checkpoint must run while no stock
+ * change is in progress, for example at shutdown, or a change could end up both in the
+ * snapshot and in the log.
+ */
+public class ShopPersistence implements StockListener, AutoCloseable {
+    private static final String SNAPSHOT_FILE = "shop.snapshot";
+    private static final String LOG_PREFIX = "stock-";
+    private static final String LOG_SUFFIX = ".log";
+
+    private final Path directory;
+    private volatile StockLog stockLog;
+    private long logGeneration;
+    private volatile Shop shop;
+    private volatile ShopServiceImpl shopServiceImpl;
+
+    public ShopPersistence(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Error creating shop state directory: " + e.getMessage());
+        }
+        List<Long> generations = logGenerations();
+        this.logGeneration = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        this.stockLog = openLog(logGeneration);
+    }
+
+    public synchronized Restored restore(ShopServiceImpl shopServiceImpl) {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        ShopSnapshot.Image image = Files.exists(snapshot) ? ShopSnapshot.read(snapshot) : null;
+        Restored restored = image != null ? image.restored() : new Restored(new Shop(), new ProductCatalog());
+        long snapshotGeneration = image != null ? image.logGeneration() : 0;
+
+        if (logGeneration < snapshotGeneration) {
+            stockLog.close();
+            logGeneration = snapshotGeneration;
+            stockLog = openLog(logGeneration);
+        }
+
+        Shop restoredShop = restored.shop();
+        for (long generation : logGenerations()) {
+            if (generation < snapshotGeneration || generation == logGeneration) continue;
+            try (StockLog log = new StockLog(logPath(generation))) {
+                log.replay(event -> replay(shopServiceImpl, restoredShop, event));
+            }
+        }
+        stockLog.replay(event -> replay(shopServiceImpl, restoredShop, event));
+        deleteLogsBefore(snapshotGeneration);
+
+        this.shop = restoredShop;
+        this.shopServiceImpl = shopServiceImpl;
+        shopServiceImpl.addStockListener(this);
+        return restored;
+    }
+
+    public synchronized void checkpoint(Shop shop, ProductCatalog productCatalog) {
+        long generation = logGeneration + 1;
+        StockLog previous = stockLog;
+        stockLog = openLog(generation);
+        logGeneration = generation;
+        previous.close();
+
+        ShopSnapshot.write(shop, productCatalog, generation, directory.resolve(SNAPSHOT_FILE));
+        deleteLogsBefore(generation);
+        this.shop = shop;
+    }
+
+    public long getLogSize() {
+        return stockLog.size();
+    }
+
+    public void sync() {
+        stockLog.force();
+    }
+
+    @Override
+    public void stockChanged(Shop shop, StockEvent event) {
+        if (shop == this.shop) stockLog.append(event);
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (shopServiceImpl != null) shopServiceImpl.removeStockListener(this);
+        stockLog.close();
+    }
+
+    private StockLog openLog(long generation) {
+        Path file = logPath(generation);
+        boolean created = !Files.exists(file);
+        StockLog log = new StockLog(file);
+        if (created) ShopSnapshot.syncDirectory(directory);
+        return log;
+    }
+
+    private List<Long> logGenerations() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Error listing stock logs: " + e.getMessage());
+        }
+    }
+
+    private void deleteLogsBefore(long generation) {
+        try {
+            boolean deleted = false;
+            for (long older : logGenerations()) {
+                if (older < generation) deleted |= Files.deleteIfExists(logPath(older));
+            }
+            if (deleted) ShopSnapshot.syncDirectory(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Error deleting old stock logs: " + e.getMessage());
+        }
+    }
+
+    private Path logPath(long generation) {
+        return directory.resolve(String.format("%s%08d%s", LOG_PREFIX, generation, LOG_SUFFIX));
+    }
+
+    private static void replay(ShopServiceImpl shopServiceImpl, Shop shop, StockEvent event) {
+        switch (event.getType()) {
+            case ADDED, RELEASED -> shopServiceImpl.addProduct(shop, event.getProductId(), event.getQuantity(), event.getArrivalDate());
+            case REMOVED, RESERVED, EXPIRED -> shopServiceImpl.removeProduct(shop, event.getProductId(), event.getQuantity());
+            case SOLD -> {
+                // the stock left the shop when it was reserved
+            }
+        }
+    }
+
+    public record Restored(Shop shop, ProductCatalog productCatalog) {
+    }
+}
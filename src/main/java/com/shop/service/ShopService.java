@@ -6,6 +6,8 @@ import com.shop.model.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 public interface ShopService {
     void clearExpiredFoods(Shop shop, ProductCatalog productCatalog);
@@ -14,13 +16,23 @@ public interface ShopService {
 
     void removeProduct(Shop shop, String productId, int amount);
 
+    List<Batch> reserveProduct(Shop shop, String productId, int amount);
+
+    void releaseProduct(Shop shop, String productId, Collection<Batch> batches);
+
+    void sellProduct(Shop shop, String productId, Collection<Batch> batches);
+
     BigDecimal calculateCashierSalaries(Shop shop);
 
     void processDelivery(Shop shop, Delivery delivery);
 
+    void processBulkDelivery(Shop shop, BulkDelivery delivery);
+
     BigDecimal getTotalCost(Shop shop, BigDecimal deliveryCost);
 
     BigDecimal getProductPrice(Shop shop, ProductCatalog productCatalog, String productId, LocalDate date);
 
     BigDecimal getProfit(Shop shop, BigDecimal income, BigDecimal deliveryCost);
+
+    BigDecimal getProfit(Shop shop, SalesAnalytics salesAnalytics, LocalDate from, LocalDate to, BigDecimal deliveryCost);
 }
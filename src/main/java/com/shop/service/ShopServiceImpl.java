@@ -5,53 +5,167 @@ import com.shop.exception.ProductNotFoundException;
 import com.shop.model.*;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Stock operations are safe to call from several checkout threads at once. Every
+ * product's batch queue doubles as the lock for that product, so tills working on
+ * different products never contend, and a removal either takes the full amount or
+ * leaves the queue untouched.
+ *
+ * <p>Indexes derived from a shop's stock are kept by the service instance, so a shop's stock
+ * should be changed through one ShopServiceImpl, which the other services already share.
+ *
+ * <p>Every price change made through this service bumps its price version, which baskets
+ * priced while they were filled use to tell whether their running total is still valid.
+ * Checkout charges that running total without pricing the basket again while the version is
+ * unchanged, so prices must be changed through {@link #setProductPrice},
+ * {@link #setMarkupPercentage} or {@link #setDiscount}; a change made directly on the shop
+ * or catalog must be followed by {@link #pricesChanged}.
+ */
 public class ShopServiceImpl implements ShopService {
+    private static final Logger LOGGER = Logger.getLogger("com.shop.stock");
+
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final WeakKeyMap<Shop, StockIndex> stockIndexes = new WeakKeyMap<>();
+    private final List<StockListener> stockListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong priceVersion = new AtomicLong();
+    private final ShopMetrics metrics = ShopMetrics.global();
+
+    public void addStockListener(StockListener stockListener) {
+        stockListeners.add(stockListener);
+    }
+
+    public void removeStockListener(StockListener stockListener) {
+        stockListeners.remove(stockListener);
+    }
 
     @Override
     public void clearExpiredFoods(Shop shop, ProductCatalog productCatalog) {
+        long start = metrics.start();
         LocalDate today = DateWrapper.currentDate();
-        shop.getStockBatches().forEach((productId, batches) -> {
-            Product product = productCatalog.getProductCatalog().get(productId);
-            if (product instanceof PerishableProduct perishable) {
-                batches.removeIf(batch -> batch.getArrivalDate().plusDays(perishable.getExpirationDays()).isBefore(today));
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        Map<String, Product> products = productCatalog.getProductCatalog();
+
+        StockIndex stockIndex = getStockIndex(shop, stockBatches);
+        stockIndex.indexExpiry(products);
+
+        Set<String> expiredProductIds = new HashSet<>();
+        Set<String> productIds;
+        while ((productIds = stockIndex.pollExpiredBefore(today)) != null) {
+            expiredProductIds.addAll(productIds);
+        }
+
+        for (String productId : expiredProductIds) {
+            PriorityQueue<Batch> batches = stockBatches.get(productId);
+            if (batches != null && products.get(productId) instanceof PerishableProduct perishable) {
+                synchronized (batches) {
+                    while (!batches.isEmpty() && batches.peek().getArrivalDate().plusDays(perishable.getExpirationDays()).isBefore(today)) {
+                        Batch expired = batches.poll();
+                        stockIndex.quantityChanged(productId, -expired.getQuantity());
+                        stockChanged(shop, StockEventType.EXPIRED, productId, expired.getArrivalDate(), expired.getQuantity());
+                    }
+                }
             }
-        });
+        }
+        metrics.stop(MeteredOperation.CLEAR_EXPIRED_FOODS, start);
     }
 
     @Override
     public void addProduct(Shop shop, String productId, int amount, LocalDate arrivalDate) {
-        PriorityQueue<Batch> stock = shop.getStockBatches().computeIfAbsent(productId, k -> new PriorityQueue<>());
-        stock.add(new Batch(arrivalDate, amount));
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        PriorityQueue<Batch> stock = stockBatches.computeIfAbsent(productId, k -> new PriorityQueue<>());
+        synchronized (stock) {
+            stock.add(new Batch(arrivalDate, amount));
+
+            StockIndex stockIndex = getStockIndex(shop, stockBatches);
+            stockIndex.quantityChanged(productId, amount);
+            stockIndex.batchAdded(productId, arrivalDate);
+            stockChanged(shop, StockEventType.ADDED, productId, arrivalDate, amount);
+        }
     }
 
     @Override
     public void removeProduct(Shop shop, String productId, int amount) {
-        PriorityQueue<Batch> stock = shop.getStockBatches().get(productId);
-        if (stock == null || stock.isEmpty()) throw new ProductNotFoundException("Product not found");
-
-        int remaining = amount;
-        while (remaining > 0 && !stock.isEmpty()) {
-            Batch batch = stock.poll();
-            if (batch.getQuantity() > remaining) {
-                batch.setQuantity(batch.getQuantity() - remaining);
-                stock.add(batch);
-                remaining = 0;
-            } else {
-                remaining -= batch.getQuantity();
+        long start = metrics.start();
+        takeProduct(shop, productId, amount, StockEventType.REMOVED);
+        metrics.stop(MeteredOperation.REMOVE_PRODUCT, start);
+    }
+
+    @Override
+    public List<Batch> reserveProduct(Shop shop, String productId, int amount) {
+        return takeProduct(shop, productId, amount, StockEventType.RESERVED);
+    }
+
+    @Override
+    public void releaseProduct(Shop shop, String productId, Collection<Batch> batches) {
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        PriorityQueue<Batch> stock = stockBatches.computeIfAbsent(productId, k -> new PriorityQueue<>());
+        synchronized (stock) {
+            StockIndex stockIndex = getStockIndex(shop, stockBatches);
+            for (Batch batch : batches) {
+                stock.add(new Batch(batch.getArrivalDate(), batch.getQuantity()));
+                stockIndex.quantityChanged(productId, batch.getQuantity());
+                stockIndex.batchAdded(productId, batch.getArrivalDate());
+                stockChanged(shop, StockEventType.RELEASED, productId, batch.getArrivalDate(), batch.getQuantity());
             }
         }
-        if (remaining > 0) throw new OutOfStockException("Not enough stock for product: " + productId);
+    }
+
+    @Override
+    public void sellProduct(Shop shop, String productId, Collection<Batch> batches) {
+        PriorityQueue<Batch> stock = shop.getStockBatches().computeIfAbsent(productId, k -> new PriorityQueue<>());
+        synchronized (stock) {
+            stockChanged(shop, StockEventType.SOLD, productId, null, quantity(batches));
+        }
+    }
+
+    private List<Batch> takeProduct(Shop shop, String productId, int amount, StockEventType eventType) {
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        PriorityQueue<Batch> stock = stockBatches.get(productId);
+        if (stock == null) throw new ProductNotFoundException("Product not found");
+
+        synchronized (stock) {
+            if (stock.isEmpty()) throw new ProductNotFoundException("Product not found");
+
+            List<Batch> taken = new ArrayList<>();
+            int remaining = amount;
+            while (remaining > 0 && !stock.isEmpty()) {
+                Batch batch = stock.poll();
+                if (batch.getQuantity() > remaining) {
+                    batch.setQuantity(batch.getQuantity() - remaining);
+                    stock.add(batch);
+                    taken.add(new Batch(batch.getArrivalDate(), remaining));
+                    remaining = 0;
+                } else {
+                    remaining -= batch.getQuantity();
+                    taken.add(batch);
+                }
+            }
+            if (remaining > 0) {
+                stock.addAll(taken);
+                metrics.failed(MeteredFailure.OUT_OF_STOCK);
+                throw new OutOfStockException("Not enough stock for product: " + productId);
+            }
+            getStockIndex(shop, stockBatches).quantityChanged(productId, -amount);
+            stockChanged(shop, eventType, productId, null, amount);
+            return taken;
+        }
     }
 
     public int getProductQuantity(Shop shop, String productId) {
-        PriorityQueue<Batch> stock = shop.getStockBatches().get(productId);
-        if (stock == null || stock.isEmpty()) throw new ProductNotFoundException("Product not found");
-        return stock.stream().mapToInt(Batch::getQuantity).sum();
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        PriorityQueue<Batch> stock = stockBatches.get(productId);
+        if (stock == null) throw new ProductNotFoundException("Product not found");
+
+        int quantity = getStockIndex(shop, stockBatches).getQuantity(productId, stock);
+        if (quantity == 0) throw new ProductNotFoundException("Product not found");
+        return quantity;
     }
 
     @Override
@@ -63,11 +177,81 @@ public class ShopServiceImpl implements ShopService {
 
     @Override
     public void processDelivery(Shop shop, Delivery delivery) {
+        long start = metrics.start();
         for (Map.Entry<String, Batch> entry : delivery.getProducts().entrySet()) {
             String productId = entry.getKey();
             Batch batch = entry.getValue();
             addProduct(shop, productId, batch.getQuantity(), batch.getArrivalDate());
         }
+        metrics.stop(MeteredOperation.PROCESS_DELIVERY, start);
+    }
+
+    /**
+     * Stocks a delivery that may carry many batches per product. Products are handled in
+     * parallel on the common fork-join pool: same-date batches are merged, the merged batches
+     * sorted, and the result appended to the product's queue in ascending date order under its
+     * lock, so other threads see either none or all of a product's delivered batches.
+     */
+    @Override
+    public void processBulkDelivery(Shop shop, BulkDelivery delivery) {
+        long start = metrics.start();
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        for (String productId : delivery.getProducts().keySet()) {
+            stockBatches.computeIfAbsent(productId, k -> new PriorityQueue<>());
+        }
+
+        delivery.getProducts().entrySet().parallelStream().forEach(entry -> {
+            List<Batch> batches = mergeByArrivalDate(entry.getValue());
+            if (!batches.isEmpty()) stockBatches(shop, stockBatches, entry.getKey(), batches);
+        });
+        metrics.stop(MeteredOperation.PROCESS_BULK_DELIVERY, start);
+    }
+
+    private void stockBatches(Shop shop, Map<String, PriorityQueue<Batch>> stockBatches, String productId, List<Batch> delivered) {
+        PriorityQueue<Batch> stock = stockBatches.get(productId);
+        synchronized (stock) {
+            List<Batch> sorted = delivered;
+            if (!stock.isEmpty()) {
+                Batch[] current = stock.toArray(new Batch[0]);
+                Arrays.sort(current);
+                sorted = mergeSorted(current, delivered);
+                stock.clear();
+            }
+            stock.addAll(sorted);
+
+            StockIndex stockIndex = getStockIndex(shop, stockBatches);
+            int amount = 0;
+            for (Batch batch : delivered) {
+                amount = Math.addExact(amount, batch.getQuantity());
+                stockIndex.batchAdded(productId, batch.getArrivalDate());
+                stockChanged(shop, StockEventType.ADDED, productId, batch.getArrivalDate(), batch.getQuantity());
+            }
+            stockIndex.quantityChanged(productId, amount);
+        }
+    }
+
+    private static List<Batch> mergeByArrivalDate(Collection<Batch> batches) {
+        Map<LocalDate, Batch> byDate = new HashMap<>();
+        for (Batch batch : batches) {
+            Batch merged = byDate.get(batch.getArrivalDate());
+            if (merged == null) byDate.put(batch.getArrivalDate(), new Batch(batch.getArrivalDate(), batch.getQuantity()));
+            else merged.setQuantity(Math.addExact(merged.getQuantity(), batch.getQuantity()));
+        }
+
+        List<Batch> merged = new ArrayList<>(byDate.values());
+        Collections.sort(merged);
+        return merged;
+    }
+
+    private static List<Batch> mergeSorted(Batch[] current, List<Batch> delivered) {
+        List<Batch> merged = new ArrayList<>(current.length + delivered.size());
+        int i = 0;
+        for (Batch batch : delivered) {
+            while (i < current.length && current[i].compareTo(batch) <= 0) merged.add(current[i++]);
+            merged.add(batch);
+        }
+        while (i < current.length) merged.add(current[i++]);
+        return merged;
     }
 
     @Override
@@ -80,21 +264,85 @@ public class ShopServiceImpl implements ShopService {
         Product product = productCatalog.getProductCatalog().get(productId);
         if (product == null) throw new ProductNotFoundException("Product not found");
 
-        BigDecimal finalPrice = product.getPrice();
-        finalPrice = finalPrice.multiply(shop.getMarkupPercentage().get(product.getCategory()).add(BigDecimal.ONE));
+        PriceIndex.Entry prices = priceIndex.get(shop, productId, product);
+        return isCloseToExpire(shop, date) ? prices.discountedPrice() : prices.regularPrice();
+    }
 
-        if (isCloseToExpire(shop, date)) {
-            finalPrice = finalPrice.multiply(BigDecimal.ONE.subtract(shop.getDiscountPercentage()));
-        }
-        return finalPrice.setScale(2, RoundingMode.HALF_UP);
+    public long getPriceVersion() {
+        return priceVersion.get();
+    }
+
+    public void pricesChanged() {
+        priceVersion.incrementAndGet();
+    }
+
+    public void setProductPrice(ProductCatalog productCatalog, String productId, BigDecimal price) {
+        Product product = productCatalog.getProductCatalog().get(productId);
+        if (product == null) throw new ProductNotFoundException("Product not found");
+
+        product.setPrice(price);
+        pricesChanged();
+    }
+
+    public void setMarkupPercentage(Shop shop, Category category, BigDecimal markupPercentage) {
+        shop.getMarkupPercentage().put(category, markupPercentage);
+        pricesChanged();
+    }
+
+    public void setDiscount(Shop shop, BigDecimal discountPercentage, int daysBeforeExpiryDiscount) {
+        shop.setDiscountPercentage(discountPercentage);
+        shop.setDaysBeforeExpityDiscount(daysBeforeExpiryDiscount);
+        pricesChanged();
     }
 
     @Override
     public BigDecimal getProfit(Shop shop, BigDecimal income, BigDecimal deliveryCost) {
-        return income.subtract(getTotalCost(shop, deliveryCost)).setScale(2, RoundingMode.HALF_UP);
+        return Money.subtract(income, getTotalCost(shop, deliveryCost));
+    }
+
+    @Override
+    public BigDecimal getProfit(Shop shop, SalesAnalytics salesAnalytics, LocalDate from, LocalDate to, BigDecimal deliveryCost) {
+        return getProfit(shop, salesAnalytics.getRevenue(from, to), deliveryCost);
     }
 
     public boolean isCloseToExpire(Shop shop, LocalDate date) {
         return date.isBefore(DateWrapper.currentDate().plusDays(shop.getDaysBeforeExpityDiscount()));
     }
+
+    static int quantity(Collection<Batch> batches) {
+        int quantity = 0;
+        for (Batch batch : batches) {
+            quantity = Math.addExact(quantity, batch.getQuantity());
+        }
+        return quantity;
+    }
+
+    protected void stockChanged(Shop shop, StockEventType type, String productId, LocalDate arrivalDate, int quantity) {
+        if (stockListeners.isEmpty()) return;
+
+        StockEvent event = new StockEvent(type, productId, arrivalDate, quantity);
+        RuntimeException durableFailure = null;
+        for (StockListener stockListener : stockListeners) {
+            try {
+                stockListener.stockChanged(shop, event);
+            } catch (RuntimeException e) {
+                if (!stockListener.isDurable()) {
+                    LOGGER.log(Level.WARNING, "Stock listener failed on " + type + " of " + productId, e);
+                } else if (durableFailure == null) {
+                    durableFailure = e;
+                } else {
+                    durableFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (durableFailure != null) throw durableFailure;
+    }
+
+    private StockIndex getStockIndex(Shop shop, Map<String, PriorityQueue<Batch>> stockBatches) {
+        StockIndex stockIndex = stockIndexes.get(shop);
+        if (stockIndex != null && stockIndex.isFor(stockBatches)) return stockIndex;
+
+        return stockIndexes.compute(shop, (k, current) ->
+                current != null && current.isFor(stockBatches) ? current : new StockIndex(stockBatches));
+    }
 }
@@ -0,0 +1,263 @@
+package com.shop.service;
+
+import com.shop.model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Binary image of a shop and its product catalog. Everything in {@link Shop} is kept,
+ * including the customers queued at each desk and their baskets. A snapshot is written to a
+ * temporary file and moved into place, so a crash never leaves a half-written snapshot, and
+ * it is read back through a memory mapping of the file. The header names the stock log
+ * generation that continues from the snapshot.
+ */
+final class ShopSnapshot {
+    private static final int MAGIC = 0x53484F50;
+    private static final int VERSION = 2;
+    private static final byte PERISHABLE = 1;
+    private static final byte NON_PERISHABLE = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private ShopSnapshot() {
+    }
+
+    static void write(Shop shop, ProductCatalog productCatalog, long logGeneration, Path file) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(logGeneration);
+                writeShop(out, shop);
+                writeCatalog(out, productCatalog);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing shop snapshot: " + e.getMessage());
+        }
+    }
+
+    static Image read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC) throw new IOException("Not a shop snapshot: " + file);
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported shop snapshot version " + version);
+
+            long logGeneration = in.getLong();
+            Shop shop = readShop(in);
+            ProductCatalog productCatalog = readCatalog(in);
+            return new Image(logGeneration, new ShopPersistence.Restored(shop, productCatalog));
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Error reading shop snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes a rename or delete in {@code directory} durable. Platforms that cannot open a
+     * directory for syncing throw here; there the rename is as durable as they make it.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories cannot be synced on this platform
+        }
+    }
+
+    private static void writeShop(DataOutputStream out, Shop shop) throws IOException {
+        writeString(out, shop.getName());
+        out.writeInt(shop.getMarkupPercentage().size());
+        for (Map.Entry<Category, BigDecimal> markup : shop.getMarkupPercentage().entrySet()) {
+            out.writeByte(markup.getKey().ordinal());
+            writeDecimal(out, markup.getValue());
+        }
+        out.writeInt(shop.getDaysBeforeExpityDiscount());
+        writeDecimal(out, shop.getDiscountPercentage());
+
+        out.writeInt(shop.getCashierDesks().size());
+        for (CashierDesk cashierDesk : shop.getCashierDesks()) {
+            Cashier cashier = cashierDesk.getCashier();
+            out.writeBoolean(cashier != null);
+            if (cashier != null) {
+                writeString(out, cashier.getId());
+                writeString(out, cashier.getName());
+                writeDecimal(out, cashier.getSalary());
+            }
+            out.writeInt(cashierDesk.getCustomers().size());
+            for (Customer customer : cashierDesk.getCustomers()) {
+                writeDecimal(out, customer.getBudget());
+                writeBatches(out, customer.getBasket().getItems());
+            }
+        }
+
+        Map<String, PriorityQueue<Batch>> stockBatches = shop.getStockBatches();
+        out.writeInt(stockBatches.size());
+        for (Map.Entry<String, PriorityQueue<Batch>> stock : stockBatches.entrySet()) {
+            Batch[] batches;
+            synchronized (stock.getValue()) {
+                batches = stock.getValue().toArray(new Batch[0]);
+            }
+            writeString(out, stock.getKey());
+            writeBatchArray(out, batches);
+        }
+    }
+
+    private static Shop readShop(MappedByteBuffer in) {
+        Shop shop = new Shop();
+        shop.setName(readString(in));
+        for (int i = in.getInt(); i > 0; i--) {
+            Category category = CATEGORIES[in.get()];
+            shop.getMarkupPercentage().put(category, readDecimal(in));
+        }
+        shop.setDaysBeforeExpityDiscount(in.getInt());
+        shop.setDiscountPercentage(readDecimal(in));
+
+        for (int desks = in.getInt(); desks > 0; desks--) {
+            CashierDesk cashierDesk = new CashierDesk();
+            if (in.get() != 0) {
+                cashierDesk.setCashier(new Cashier(readString(in), readString(in), readDecimal(in)));
+            }
+            for (int customers = in.getInt(); customers > 0; customers--) {
+                BigDecimal budget = readDecimal(in);
+                Basket basket = new Basket();
+                readBatches(in, basket.getItems());
+                cashierDesk.getCustomers().add(new Customer(budget, basket));
+            }
+            shop.getCashierDesks().add(cashierDesk);
+        }
+
+        readBatches(in, shop.getStockBatches());
+        return shop;
+    }
+
+    private static void writeCatalog(DataOutputStream out, ProductCatalog productCatalog) throws IOException {
+        Map<String, Product> products = productCatalog.getProductCatalog();
+        out.writeInt(products.size());
+        for (Map.Entry<String, Product> entry : products.entrySet()) {
+            Product product = entry.getValue();
+            writeString(out, entry.getKey());
+            if (product instanceof PerishableProduct perishable) {
+                out.writeByte(PERISHABLE);
+                out.writeInt(perishable.getExpirationDays());
+            } else if (product instanceof NonPerishableProduct) {
+                out.writeByte(NON_PERISHABLE);
+            } else {
+                throw new IOException("Unsupported product type " + product.getClass().getName());
+            }
+            writeString(out, product.getProductId());
+            writeString(out, product.getName());
+            writeDecimal(out, product.getPrice());
+            out.writeByte(product.getCategory() != null ? product.getCategory().ordinal() : -1);
+        }
+    }
+
+    private static ProductCatalog readCatalog(MappedByteBuffer in) {
+        ProductCatalog productCatalog = new ProductCatalog();
+        for (int i = in.getInt(); i > 0; i--) {
+            String key = readString(in);
+            byte type = in.get();
+            int expirationDays = type == PERISHABLE ? in.getInt() : 0;
+            String productId = readString(in);
+            String name = readString(in);
+            BigDecimal price = readDecimal(in);
+            byte category = in.get();
+            Category productCategory = category >= 0 ? CATEGORIES[category] : null;
+
+            productCatalog.getProductCatalog().put(key, type == PERISHABLE
+                    ? new PerishableProduct(productId, name, price, productCategory, expirationDays)
+                    : new NonPerishableProduct(productId, name, price, productCategory));
+        }
+        return productCatalog;
+    }
+
+    private static void writeBatches(DataOutputStream out, Map<String, PriorityQueue<Batch>> batchesByProduct) throws IOException {
+        out.writeInt(batchesByProduct.size());
+        for (Map.Entry<String, PriorityQueue<Batch>> entry : batchesByProduct.entrySet()) {
+            writeString(out, entry.getKey());
+            writeBatchArray(out, entry.getValue().toArray(new Batch[0]));
+        }
+    }
+
+    private static void writeBatchArray(DataOutputStream out, Batch[] batches) throws IOException {
+        Arrays.sort(batches);
+        out.writeInt(batches.length);
+        for (Batch batch : batches) {
+            out.writeLong(batch.getArrivalDate() != null ? batch.getArrivalDate().toEpochDay() : NO_DATE);
+            out.writeInt(batch.getQuantity());
+        }
+    }
+
+    private static void readBatches(MappedByteBuffer in, Map<String, PriorityQueue<Batch>> batchesByProduct) {
+        for (int products = in.getInt(); products > 0; products--) {
+            String productId = readString(in);
+            int count = in.getInt();
+            PriorityQueue<Batch> batches = new PriorityQueue<>(Math.max(count, 1));
+            for (int i = 0; i < count; i++) {
+                long epochDay = in.getLong();
+                batches.add(new Batch(epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay), in.getInt()));
+            }
+            batchesByProduct.put(productId, batches);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    private static BigDecimal readDecimal(MappedByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.getInt());
+    }
+
+    record Image(long logGeneration, ShopPersistence.Restored restored) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.shop.service;
+
+import com.shop.model.Batch;
+import com.shop.model.PerishableProduct;
+import com.shop.model.Product;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Indexes kept alongside one shop's stock batches. All updates for a product happen while
+ * its batch queue is locked, the same as the queue itself.
+ *
+ * <p>Available quantities are counted per product. A counter is seeded from the batch queue
+ * the first time it is read, so stock that was put in place before the service saw it is
+ * counted too, and after that it is only moved by the stock operations.
+ *
+ * <p>The expiry index maps an expiration date to the products that have a batch expiring on
+ * it. Shelf lives come from the catalog, which only the expiry sweep sees, so a product
+ * stocked before its shelf life is known waits in {@code unindexed} until the next sweep, and
+ * one missing from the catalog stays there until a sweep finds it in the catalog.
+ * Entries are not removed when a batch is sold; a stale entry only costs the sweep one peek.
+ */
+class StockIndex {
+    private static final int NOT_PERISHABLE = -1;
+
+    private final Map<String, PriorityQueue<Batch>> stockBatches;
+    private final Map<String, AtomicInteger> quantities = new ConcurrentHashMap<>();
+    private final TreeMap<LocalDate, Set<String>> expiringOn = new TreeMap<>();
+    private final Map<String, Integer> shelfLives = new ConcurrentHashMap<>();
+    private final Set<String> unindexed = ConcurrentHashMap.newKeySet();
+    private volatile boolean expiryIndexed;
+
+    StockIndex(Map<String, PriorityQueue<Batch>> stockBatches) {
+        this.stockBatches = stockBatches;
+    }
+
+    boolean isFor(Map<String, PriorityQueue<Batch>> stockBatches) {
+        return this.stockBatches == stockBatches;
+    }
+
+    int getQuantity(String productId, PriorityQueue<Batch> batches) {
+        AtomicInteger quantity = quantities.get(productId);
+        if (quantity != null) return quantity.get();
+
+        synchronized (batches) {
+            return quantities.computeIfAbsent(productId,
+                    k -> new AtomicInteger(batches.stream().mapToInt(Batch::getQuantity).sum())).get();
+        }
+    }
+
+    void quantityChanged(String productId, int delta) {
+        AtomicInteger quantity = quantities.get(productId);
+        if (quantity != null) quantity.addAndGet(delta);
+    }
+
+    void batchAdded(String productId, LocalDate arrivalDate) {
+        if (!expiryIndexed) return;
+
+        Integer shelfLife = shelfLives.get(productId);
+        if (shelfLife == null) unindexed.add(productId);
+        else if (shelfLife != NOT_PERISHABLE) indexExpiry(productId, arrivalDate.plusDays(shelfLife));
+    }
+
+    void indexExpiry(Map<String, Product> products) {
+        if (!expiryIndexed) {
+            expiryIndexed = true;
+            unindexed.addAll(stockBatches.keySet());
+        }
+
+        for (Iterator<String> it = unindexed.iterator(); it.hasNext(); ) {
+            String productId = it.next();
+            Product product = products.get(productId);
+            if (product == null) continue;
+            it.remove();
+
+            int shelfLife = product instanceof PerishableProduct perishable
+                    ? perishable.getExpirationDays()
+                    : NOT_PERISHABLE;
+            shelfLives.put(productId, shelfLife);
+            if (shelfLife == NOT_PERISHABLE) continue;
+
+            PriorityQueue<Batch> batches = stockBatches.get(productId);
+            if (batches == null) continue;
+            synchronized (batches) {
+                for (Batch batch : batches) {
+                    indexExpiry(productId, batch.getArrivalDate().plusDays(shelfLife));
+                }
+            }
+        }
+    }
+
+    Set<String> pollExpiredBefore(LocalDate date) {
+        synchronized (expiringOn) {
+            Map.Entry<LocalDate, Set<String>> first = expiringOn.firstEntry();
+            if (first == null || !first.getKey().isBefore(date)) return null;
+            return expiringOn.pollFirstEntry().getValue();
+        }
+    }
+
+    private void indexExpiry(String productId, LocalDate expirationDate) {
+        synchronized (expiringOn) {
+            expiringOn.computeIfAbsent(expirationDate, k -> new HashSet<>()).add(productId);
+        }
+    }
+}
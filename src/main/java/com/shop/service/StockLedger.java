@@ -0,0 +1,319 @@
+package com.shop.service;
+
+import com.shop.model.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * History of a shop's stock events with projections kept up to date as each event arrives: the
+ * quantity on hand per product, its value at cost and the batches about to expire. Reports
+ * read the projections instead of the shop's stock queues, so they never wait on a product
+ * lock held by a checkout.
+ *
+ * <p>Every event gets the next position in the shop's history. Only the most recent
+ * {@code historyCapacity} events are kept, in a ring that changes of different products
+ * append to without sharing a lock; older events roll out of it, while the projections keep
+ * counting them. Read the history a page at a time with {@link #getEventPage}.
+ *
+ * <p>Removals and reservations carry no arrival dates, so the ledger takes them from its own
+ * oldest batches, as ShopServiceImpl does. Stock is valued at the catalog price, rounded to
+ * cents, when it arrives; whatever later leaves takes the cost it was recorded at, and
+ * reserved stock that is released comes back at that cost too. The ledger only sees changes
+ * made after it is attached, so attach it before stocking the shop, or right after
+ * ShopPersistence has restored it.
+ */
+public class StockLedger implements StockListener, AutoCloseable {
+    private static final int DEFAULT_HISTORY_CAPACITY = 1 << 16;
+
+    private final ShopServiceImpl shopServiceImpl;
+    private final Shop shop;
+    private final ProductCatalog productCatalog;
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicReferenceArray<RecordedEvent> history;
+    private final Map<String, ProductLedger> products = new ConcurrentHashMap<>();
+    private final LongAdder valueAtCostCents = new LongAdder();
+
+    private StockLedger(ShopServiceImpl shopServiceImpl, Shop shop, ProductCatalog productCatalog, int historyCapacity) {
+        if (historyCapacity <= 0) throw new IllegalArgumentException("History capacity must be positive: " + historyCapacity);
+        this.shopServiceImpl = shopServiceImpl;
+        this.shop = shop;
+        this.productCatalog = productCatalog;
+        this.history = new AtomicReferenceArray<>(historyCapacity);
+    }
+
+    /**
+     * Creates a ledger for {@code shop} and registers it with {@code shopServiceImpl}; close it
+     * to stop following the shop.
+     */
+    public static StockLedger attach(ShopServiceImpl shopServiceImpl, Shop shop, ProductCatalog productCatalog) {
+        return attach(shopServiceImpl, shop, productCatalog, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    public static StockLedger attach(ShopServiceImpl shopServiceImpl, Shop shop, ProductCatalog productCatalog, int historyCapacity) {
+        StockLedger ledger = new StockLedger(shopServiceImpl, shop, productCatalog, historyCapacity);
+        shopServiceImpl.addStockListener(ledger);
+        return ledger;
+    }
+
+    @Override
+    public void stockChanged(Shop shop, StockEvent event) {
+        if (shop != this.shop) return;
+
+        long position = eventCount.getAndIncrement();
+        history.set(slot(position), new RecordedEvent(position, event));
+        products.computeIfAbsent(event.getProductId(), ProductLedger::new).apply(event);
+    }
+
+    /**
+     * The number of events the ledger has seen, which is also the position the next one gets.
+     */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /**
+     * The position of the oldest event still kept in the history.
+     */
+    public long getOldestEventPosition() {
+        return Math.max(0, eventCount.get() - history.length());
+    }
+
+    /**
+     * The kept events from position {@code from} on.
+     */
+    public List<StockEvent> getEvents(long from) {
+        return getEventPage(from, Integer.MAX_VALUE).events();
+    }
+
+    /**
+     * Up to {@code limit} consecutive events from position {@code from}, or from the oldest
+     * kept event when those at {@code from} have already rolled out. The page stops early at
+     * an event that is still being recorded. Ask for the next page from {@link EventPage#next()}.
+     */
+    public EventPage getEventPage(long from, int limit) {
+        long end = eventCount.get();
+        long start = Math.max(from, end - history.length());
+        List<StockEvent> events = new ArrayList<>((int) Math.min(limit, Math.max(0, end - start)));
+        for (long position = start; position < end && events.size() < limit; position++) {
+            RecordedEvent recorded = history.get(slot(position));
+            if (recorded == null || recorded.position() != position) break;
+            events.add(recorded.event());
+        }
+        return new EventPage(start, List.copyOf(events));
+    }
+
+    public int getQuantity(String productId) {
+        ProductLedger product = products.get(productId);
+        return product != null ? product.quantity() : 0;
+    }
+
+    public Map<String, Integer> getQuantities() {
+        Map<String, Integer> quantities = new TreeMap<>();
+        products.forEach((productId, product) -> {
+            int quantity = product.quantity();
+            if (quantity > 0) quantities.put(productId, quantity);
+        });
+        return quantities;
+    }
+
+    public long getUnitsSold(String productId) {
+        ProductLedger product = products.get(productId);
+        return product != null ? product.unitsSold() : 0;
+    }
+
+    public long getUnitsExpired(String productId) {
+        ProductLedger product = products.get(productId);
+        return product != null ? product.unitsExpired() : 0;
+    }
+
+    public BigDecimal getValueAtCost() {
+        return Money.toBigDecimal(valueAtCostCents.sum());
+    }
+
+    public BigDecimal getValueAtCost(String productId) {
+        ProductLedger product = products.get(productId);
+        return Money.toBigDecimal(product != null ? product.valueCents() : 0);
+    }
+
+    /**
+     * The perishable batches that expire before the shop starts discounting them as close to
+     * expiry, that is within {@code daysBeforeExpityDiscount} days from today.
+     */
+    public Map<String, List<Batch>> getExpiringSoon() {
+        return getExpiringBefore(DateWrapper.currentDate().plusDays(shop.getDaysBeforeExpityDiscount()));
+    }
+
+    public Map<String, List<Batch>> getExpiringBefore(LocalDate date) {
+        Map<String, List<Batch>> expiring = new TreeMap<>();
+        products.forEach((productId, product) -> {
+            if (!(productCatalog.getProductCatalog().get(productId) instanceof PerishableProduct perishable)) return;
+
+            List<Batch> batches = product.arrivedBefore(date.minusDays(perishable.getExpirationDays()));
+            if (!batches.isEmpty()) expiring.put(productId, batches);
+        });
+        return expiring;
+    }
+
+    @Override
+    public void close() {
+        shopServiceImpl.removeStockListener(this);
+    }
+
+    private int slot(long position) {
+        return (int) (position % history.length());
+    }
+
+    private long costCents(String productId) {
+        Product product = productCatalog.getProductCatalog().get(productId);
+        return product != null && product.getPrice() != null
+                ? Money.toCents(product.getPrice().setScale(2, RoundingMode.HALF_UP))
+                : 0;
+    }
+
+    private final class ProductLedger {
+        private final String productId;
+        private final NavigableMap<LocalDate, Deque<Lot>> onHand = new TreeMap<>();
+        private final NavigableMap<LocalDate, Deque<Lot>> reserved = new TreeMap<>();
+        private int quantity;
+        private long valueCents;
+        private long unitsSold;
+        private long unitsExpired;
+
+        private ProductLedger(String productId) {
+            this.productId = productId;
+        }
+
+        private synchronized void apply(StockEvent event) {
+            int amount = event.getQuantity();
+            LocalDate arrivalDate = event.getArrivalDate();
+            switch (event.getType()) {
+                case ADDED -> stock(List.of(new Lot(arrivalDate, amount, costCents(productId))));
+                case RELEASED -> {
+                    List<Lot> returned = take(reserved, arrivalDate, amount);
+                    int unknown = amount - quantity(returned);
+                    if (unknown > 0) returned.add(new Lot(arrivalDate, unknown, costCents(productId)));
+                    stock(returned);
+                }
+                case REMOVED -> unstock(take(onHand, null, amount));
+                case RESERVED -> {
+                    List<Lot> taken = take(onHand, null, amount);
+                    unstock(taken);
+                    for (Lot lot : taken) {
+                        reserved.computeIfAbsent(lot.arrivalDate(), k -> new ArrayDeque<>()).addLast(lot);
+                    }
+                }
+                case EXPIRED -> {
+                    unstock(take(onHand, arrivalDate, amount));
+                    unitsExpired += amount;
+                }
+                case SOLD -> {
+                    take(reserved, null, amount);
+                    unitsSold += amount;
+                }
+            }
+        }
+
+        private void stock(List<Lot> lots) {
+            for (Lot lot : lots) {
+                onHand.computeIfAbsent(lot.arrivalDate(), k -> new ArrayDeque<>()).addLast(lot);
+                counted(lot.quantity(), lot.costCents());
+            }
+        }
+
+        private void unstock(List<Lot> lots) {
+            for (Lot lot : lots) {
+                counted(-lot.quantity(), -lot.costCents());
+            }
+        }
+
+        private void counted(int amount, long cents) {
+            quantity += amount;
+            valueCents += cents;
+            valueAtCostCents.add(cents);
+        }
+
+        /**
+         * Takes up to {@code amount} units from {@code lots}, from the given arrival date or,
+         * when it is null, from the oldest lots first.
+         */
+        private static List<Lot> take(NavigableMap<LocalDate, Deque<Lot>> lots, LocalDate arrivalDate, int amount) {
+            List<Lot> taken = new ArrayList<>();
+            Map<LocalDate, Deque<Lot>> from = arrivalDate != null ? lots.subMap(arrivalDate, true, arrivalDate, true) : lots;
+            Iterator<Deque<Lot>> dates = from.values().iterator();
+            int remaining = amount;
+            while (remaining > 0 && dates.hasNext()) {
+                Deque<Lot> sameDate = dates.next();
+                while (remaining > 0 && !sameDate.isEmpty()) {
+                    Lot lot = sameDate.pollFirst();
+                    int take = Math.min(lot.quantity(), remaining);
+                    if (take < lot.quantity()) sameDate.addFirst(lot.withQuantity(lot.quantity() - take));
+                    taken.add(lot.withQuantity(take));
+                    remaining -= take;
+                }
+                if (sameDate.isEmpty()) dates.remove();
+            }
+            return taken;
+        }
+
+        private static int quantity(Collection<Lot> lots) {
+            int quantity = 0;
+            for (Lot lot : lots) {
+                quantity += lot.quantity();
+            }
+            return quantity;
+        }
+
+        private synchronized int quantity() {
+            return quantity;
+        }
+
+        private synchronized long valueCents() {
+            return valueCents;
+        }
+
+        private synchronized long unitsSold() {
+            return unitsSold;
+        }
+
+        private synchronized long unitsExpired() {
+            return unitsExpired;
+        }
+
+        private synchronized List<Batch> arrivedBefore(LocalDate date) {
+            List<Batch> arrived = new ArrayList<>();
+            for (Map.Entry<LocalDate, Deque<Lot>> sameDate : onHand.headMap(date, false).entrySet()) {
+                arrived.add(new Batch(sameDate.getKey(), quantity(sameDate.getValue())));
+            }
+            return arrived;
+        }
+    }
+
+    /**
+     * Consecutive events of the history, the first of them at position {@code from}.
+     */
+    public record EventPage(long from, List<StockEvent> events) {
+        public long next() {
+            return from + events.size();
+        }
+    }
+
+    private record RecordedEvent(long position, StockEvent event) {
+    }
+
+    private record Lot(LocalDate arrivalDate, int quantity, long unitCostCents) {
+        private Lot withQuantity(int quantity) {
+            return new Lot(arrivalDate, quantity, unitCostCents);
+        }
+
+        private long costCents() {
+            return Money.times(unitCostCents, quantity);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.shop.service;
+
+import com.shop.model.Shop;
+import com.shop.model.StockEvent;
+
+/**
+ * Receives every change ShopServiceImpl makes to a shop's stock. Events are delivered on the
+ * thread making the change while it holds the product's lock, so the events of one product
+ * arrive in the order they were applied. Implementations should return quickly. The change
+ * is already made when the event arrives. An exception from a reporting listener is logged to
+ * the {@code com.shop.stock} logger and does not fail the change. A durable listener, one that
+ * keeps the record the stock is restored from, must not lose an event silently: its exception
+ * is rethrown to the caller making the change once every listener has seen the event.
+ */
+public interface StockListener {
+    void stockChanged(Shop shop, StockEvent event);
+
+    default boolean isDurable() {
+        return false;
+    }
+}
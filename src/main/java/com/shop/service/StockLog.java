@@ -0,0 +1,145 @@
+package com.shop.service;
+
+import com.shop.model.StockEvent;
+import com.shop.model.StockEventType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log of stock events. Each record is
+ * <pre>
+ *   int   CRC32C of the rest of the record
+ *   byte  event type
+ *   short product id length, then the id in UTF-8
+ *   long  arrival epoch day, or Long.MIN_VALUE for none
+ *   int   quantity
+ * </pre>
+ * Records reach the operating system as they are appended; {@link #force} puts them on disk.
+ * When the log is opened, a record cut short by a crash at its end is truncated away.
+ */
+final class StockLog implements AutoCloseable {
+    private static final int FIXED_RECORD_BYTES = Integer.BYTES + Byte.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final StockEventType[] TYPES = StockEventType.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(FIXED_RECORD_BYTES + Short.MAX_VALUE);
+    private final CRC32C crc = new CRC32C();
+    private long size;
+
+    StockLog(Path file) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            size = replay(event -> {
+            });
+            if (size < channel.size()) channel.truncate(size);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening stock log: " + e.getMessage());
+        }
+    }
+
+    synchronized void append(StockEvent event) {
+        byte[] productId = event.getProductId().getBytes(StandardCharsets.UTF_8);
+        if (productId.length > Short.MAX_VALUE) throw new IllegalArgumentException("Product id too long: " + event.getProductId());
+
+        record.clear();
+        record.putInt(0);
+        record.put((byte) event.getType().ordinal());
+        record.putShort((short) productId.length);
+        record.put(productId);
+        record.putLong(event.getArrivalDate() != null ? event.getArrivalDate().toEpochDay() : NO_DATE);
+        record.putInt(event.getQuantity());
+        record.flip();
+
+        crc.reset();
+        crc.update(record.array(), Integer.BYTES, record.limit() - Integer.BYTES);
+        record.putInt(0, (int) crc.getValue());
+
+        try {
+            while (record.hasRemaining()) {
+                size += channel.write(record, size);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error appending to stock log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Passes every complete record to {@code events} in the order it was appended and returns
+     * the length of the log up to the last complete record.
+     */
+    synchronized long replay(Consumer<StockEvent> events) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            long end = channel.size();
+            CRC32C checksum = new CRC32C();
+
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) return position;
+                buffer.flip();
+
+                int consumed = 0;
+                while (buffer.remaining() >= FIXED_RECORD_BYTES) {
+                    int start = buffer.position();
+                    int idLength = buffer.getShort(start + Integer.BYTES + Byte.BYTES);
+                    int recordBytes = FIXED_RECORD_BYTES + idLength;
+                    if (idLength < 0 || buffer.remaining() < recordBytes) break;
+
+                    checksum.reset();
+                    checksum.update(buffer.array(), start + Integer.BYTES, recordBytes - Integer.BYTES);
+                    int type = buffer.get(start + Integer.BYTES);
+                    if ((int) checksum.getValue() != buffer.getInt(start) || type < 0 || type >= TYPES.length) return position + consumed;
+
+                    int idStart = start + Integer.BYTES + Byte.BYTES + Short.BYTES;
+                    String productId = new String(buffer.array(), idStart, idLength, StandardCharsets.UTF_8);
+                    long epochDay = buffer.getLong(idStart + idLength);
+                    int quantity = buffer.getInt(idStart + idLength + Long.BYTES);
+                    events.accept(new StockEvent(TYPES[type], productId,
+                            epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay), quantity));
+
+                    buffer.position(start + recordBytes);
+                    consumed += recordBytes;
+                }
+
+                if (consumed == 0) return position;
+                position += consumed;
+                if (position >= end) return position;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading stock log: " + e.getMessage());
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized void force() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Error syncing stock log: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing stock log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.shop.service;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Concurrent map whose keys are held weakly and compared by identity, for data a service keeps
+ * per shop. An entry goes away once its key is not reachable anywhere else, so a long-lived
+ * service does not keep every shop it has seen. Lookups do not lock, unlike a synchronized
+ * WeakHashMap. Values must not refer to their key, or the entry is never released.
+ */
+final class WeakKeyMap<K, V> {
+    private final ConcurrentHashMap<WeakKey<K>, V> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> released = new ReferenceQueue<>();
+
+    V get(K key) {
+        return entries.get(new WeakKey<>(key, null));
+    }
+
+    V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+        if (value != null) return value;
+
+        expungeReleased();
+        return entries.computeIfAbsent(new WeakKey<>(key, released), k -> mappingFunction.apply(key));
+    }
+
+    V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        expungeReleased();
+        return entries.compute(new WeakKey<>(key, released), (k, value) -> remappingFunction.apply(key, value));
+    }
+
+    int size() {
+        expungeReleased();
+        return entries.size();
+    }
+
+    private void expungeReleased() {
+        Object key;
+        while ((key = released.poll()) != null) {
+            entries.remove(key);
+        }
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> {
+        private final int hash;
+
+        private WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) return true;
+            if (!(other instanceof WeakKey<?> otherKey)) return false;
+            Object key = get();
+            return key != null && key == otherKey.get();
+        }
+    }
+}
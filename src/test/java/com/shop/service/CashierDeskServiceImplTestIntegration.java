@@ -4,9 +4,12 @@ import com.shop.exception.InsufficientFundsException;
 import com.shop.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -24,10 +27,13 @@ class CashierDeskServiceImplTestIntegration {
     private CashierDesk cashierDesk;
     private Cashier cashier;
 
+    @TempDir
+    Path receipts;
+
     @BeforeEach
     void setUp() {
         shopServiceImpl = new ShopServiceImpl();
-        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl);
+        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(receipts));
 
         productCatalog = new ProductCatalog();
         Product milk = new PerishableProduct("MILK", "Milk", BigDecimal.valueOf(2.99), Category.FOOD, 7);
@@ -123,6 +129,34 @@ class CashierDeskServiceImplTestIntegration {
         cashierDeskServiceImpl.processPurchase(shop, productCatalog, basket, sufficientBudget, cashierDesk);
     }
 
+    @Test
+    void testProcessPurchaseChargesPriceChangedThroughTheService_INTEGRATION() {
+        customer.setBasket(basket);
+        customer.setBudget(BigDecimal.valueOf(10));
+        new CustomerServiceImpl().addProductToBasket(customer, shop, productCatalog, "BEANS", 2, shopServiceImpl);
+        assertEquals(new BigDecimal("1.74"), basket.getRunningTotal());
+
+        shopServiceImpl.setProductPrice(productCatalog, "BEANS", new BigDecimal("9.99"));
+
+        assertThrows(InsufficientFundsException.class, () ->
+                cashierDeskServiceImpl.processPurchase(shop, productCatalog, basket, customer.getBudget(), cashierDesk));
+        assertEquals(20, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
+    @Test
+    void testProcessPurchaseChargesDirectChangeAnnouncedWithPricesChanged_INTEGRATION() {
+        customer.setBasket(basket);
+        customer.setBudget(BigDecimal.valueOf(10));
+        new CustomerServiceImpl().addProductToBasket(customer, shop, productCatalog, "BEANS", 2, shopServiceImpl);
+
+        shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(9));
+        shopServiceImpl.pricesChanged();
+
+        assertThrows(InsufficientFundsException.class, () ->
+                cashierDeskServiceImpl.processPurchase(shop, productCatalog, basket, customer.getBudget(), cashierDesk));
+        assertEquals(20, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
     @Test
     void testProcessPurchaseForAllCustomersProcessesEachCustomer_INTEGRATION() {
         Customer customer1 = new Customer();
@@ -207,4 +241,292 @@ class CashierDeskServiceImplTestIntegration {
 
         assertEquals(expectedBeansPrice, receipt.getTotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessPurchaseKeepsSellingUnitPricesOnTheReceipt_INTEGRATION() throws Exception {
+        LocalDate today = DateWrapper.currentDate();
+        shopServiceImpl.addProduct(shop, "MILK", 5, today);
+        PriorityQueue<Batch> milkBatches = new PriorityQueue<>();
+        milkBatches.add(new Batch(today.minusDays(3), 2));
+        milkBatches.add(new Batch(today, 1));
+        basket.getItems().put("MILK", milkBatches);
+
+        ReceiptStore receiptStore = new ReceiptStore(receipts);
+        new CashierDeskServiceImpl(shopServiceImpl, receiptStore).processPurchase(shop, productCatalog, basket, BigDecimal.TEN, cashierDesk);
+
+        Receipt receipt = receiptStore.load(receiptStore.getJournal().receiptIds().iterator().next());
+        assertEquals(new BigDecimal("8.55"), receipt.getTotal());
+        assertEquals("[ReceiptLine(productId=MILK, quantity=2, unitPrice=2.63), ReceiptLine(productId=MILK, quantity=1, unitPrice=3.29)]",
+                receipt.getLines().toString());
+
+        String text;
+        try (var files = Files.list(receipts)) {
+            text = Files.readString(files.filter(file -> file.toString().endsWith(".txt")).findFirst().orElseThrow());
+        }
+        assertTrue(text.contains("- Milk x 2 @ 2.63 each\n- Milk x 1 @ 3.29 each\n"));
+        assertTrue(text.contains("Total: $8.55\n"));
+    }
+
+    @Test
+    void testProcessPurchaseForAllDesksDrainsEveryDesk_INTEGRATION() {
+        Cashier cashier2 = new Cashier("C002", "Jane Doe", BigDecimal.valueOf(2000));
+        CashierDesk cashierDesk2 = new CashierDesk();
+        cashierDesk2.setCashier(cashier2);
+        shop.getCashierDesks().add(cashierDesk2);
+
+        CustomerServiceImpl customerServiceImpl = new CustomerServiceImpl();
+        for (int i = 0; i < 5; i++) {
+            Customer milkCustomer = new Customer();
+            milkCustomer.setBudget(BigDecimal.valueOf(50));
+            customerServiceImpl.addProductToBasket(milkCustomer, shop, "MILK", 1, shopServiceImpl);
+            cashierDesk.getCustomers().add(milkCustomer);
+
+            Customer beansCustomer = new Customer();
+            beansCustomer.setBudget(BigDecimal.valueOf(50));
+            customerServiceImpl.addProductToBasket(beansCustomer, shop, "BEANS", 2, shopServiceImpl);
+            cashierDesk2.getCustomers().add(beansCustomer);
+        }
+
+        cashierDeskServiceImpl.processPurchaseForAllDesks(shop, productCatalog);
+
+        assertTrue(cashierDesk.getCustomers().isEmpty());
+        assertTrue(cashierDesk2.getCustomers().isEmpty());
+        assertEquals(5, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(10, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
+    @Test
+    void testProcessPurchaseForAllDesksReturnsStockOfRejectedCustomers_INTEGRATION() {
+        Customer poorCustomer = new Customer();
+        poorCustomer.setBudget(BigDecimal.ONE);
+        PriorityQueue<Batch> milkBatches = new PriorityQueue<>();
+        milkBatches.add(new Batch(DateWrapper.currentDate().minusDays(3), 5));
+        poorCustomer.getBasket().getItems().put("MILK", milkBatches);
+
+        Customer richCustomer = new Customer();
+        richCustomer.setBudget(BigDecimal.valueOf(100));
+        PriorityQueue<Batch> beansBatches = new PriorityQueue<>();
+        beansBatches.add(new Batch(DateWrapper.currentDate(), 2));
+        richCustomer.getBasket().getItems().put("BEANS", beansBatches);
+
+        cashierDesk.getCustomers().add(poorCustomer);
+        cashierDesk.getCustomers().add(richCustomer);
+
+        assertThrows(InsufficientFundsException.class, () -> cashierDeskServiceImpl.processPurchaseForAllDesks(shop, productCatalog));
+
+        assertTrue(cashierDesk.getCustomers().isEmpty());
+        assertEquals(15, shopServiceImpl.getProductQuantity(shop, "MILK"));
+    }
+
+    @Test
+    void testGetTotalBasketPricePricesBatchesOfTheSameProductSeparately_INTEGRATION() {
+        PriorityQueue<Batch> milkBatches = new PriorityQueue<>();
+        milkBatches.add(new Batch(DateWrapper.currentDate().minusDays(3), 2));
+        milkBatches.add(new Batch(DateWrapper.currentDate().plusDays(5), 1));
+
+        basket.getItems().put("MILK", milkBatches);
+
+        BigDecimal expectedDiscounted = BigDecimal.valueOf(2.99)
+                .multiply(BigDecimal.valueOf(1.10))
+                .multiply(BigDecimal.valueOf(0.80))
+                .setScale(2, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(2));
+
+        BigDecimal expectedRegular = BigDecimal.valueOf(2.99)
+                .multiply(BigDecimal.valueOf(1.10))
+                .setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal actualTotal = cashierDeskServiceImpl.getTotalBasketPrice(shop, productCatalog, basket);
+
+        assertEquals(expectedDiscounted.add(expectedRegular), actualTotal);
+    }
+
+    @Test
+    void testProcessPurchaseWithAsyncReceiptWriterPersistsReceiptsOnFlush_INTEGRATION(@TempDir Path receiptsDirectory) throws Exception {
+        List<String> receiptIds = new ArrayList<>();
+
+        try (ReceiptStore receiptStore = new ReceiptStore(receiptsDirectory);
+             AsyncReceiptWriter receiptWriter = new AsyncReceiptWriter(receiptStore, 4, 2)) {
+            CashierDeskServiceImpl asyncCashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, receiptWriter) {
+                @Override
+                public Receipt createReceipt(Cashier cashier, Basket basket, BigDecimal totalCost) {
+                    Receipt receipt = super.createReceipt(cashier, basket, totalCost);
+                    receiptIds.add(receipt.getId());
+                    return receipt;
+                }
+            };
+
+            for (int i = 0; i < 10; i++) {
+                Basket beansBasket = new Basket();
+                PriorityQueue<Batch> beansBatches = new PriorityQueue<>();
+                beansBatches.add(new Batch(DateWrapper.currentDate(), 1));
+                beansBasket.getItems().put("BEANS", beansBatches);
+
+                asyncCashierDeskServiceImpl.processPurchase(shop, productCatalog, beansBasket, BigDecimal.TEN, cashierDesk);
+            }
+
+            receiptWriter.flush();
+
+            for (String receiptId : receiptIds) {
+                assertTrue(receiptStore.getJournal().contains(receiptId));
+            }
+        }
+
+        assertEquals(10, receiptIds.size());
+        try (ReceiptStore reopened = new ReceiptStore(receiptsDirectory)) {
+            Receipt loaded = reopened.load(receiptIds.get(0));
+            assertEquals(cashier.getName(), loaded.getCashierName());
+            assertEquals(1, loaded.getItems().get("BEANS").intValue());
+        }
+    }
+
+    @Test
+    void testAsyncReceiptWriterCloseWritesEverythingAndRejectsLaterSubmits_INTEGRATION(@TempDir Path receiptsDirectory) {
+        basket.getItems().put("BEANS", new PriorityQueue<>(List.of(new Batch(DateWrapper.currentDate(), 1))));
+        List<String> receiptIds = new ArrayList<>();
+
+        try (ReceiptStore receiptStore = new ReceiptStore(receiptsDirectory)) {
+            AsyncReceiptWriter receiptWriter = new AsyncReceiptWriter(receiptStore, 4, 2);
+            for (int i = 0; i < 10; i++) {
+                Receipt receipt = cashierDeskServiceImpl.createReceipt(cashier, basket, BigDecimal.ONE);
+                receiptWriter.submit(receipt, cashier.getName(), productCatalog);
+                receiptIds.add(receipt.getId());
+            }
+
+            Thread.currentThread().interrupt();
+            receiptWriter.close();
+            assertTrue(Thread.interrupted());
+
+            for (String receiptId : receiptIds) {
+                assertTrue(receiptStore.getJournal().contains(receiptId));
+            }
+            Receipt late = cashierDeskServiceImpl.createReceipt(cashier, basket, BigDecimal.ONE);
+            assertThrows(IllegalStateException.class, () -> receiptWriter.submit(late, cashier.getName(), productCatalog));
+            receiptStore.save(late);
+            assertTrue(receiptStore.getJournal().contains(late.getId()));
+        }
+    }
+
+    @Test
+    void testAsyncReceiptWriterKeepsWritingAfterAFailedReceiptAndReportsEveryFailure_INTEGRATION(@TempDir Path receiptsDirectory) {
+        basket.getItems().put("BEANS", new PriorityQueue<>(List.of(new Batch(DateWrapper.currentDate(), 1))));
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            receipts.add(cashierDeskServiceImpl.createReceipt(cashier, basket, BigDecimal.ONE));
+        }
+        Set<String> failing = Set.of(receipts.get(1).getId(), receipts.get(4).getId());
+
+        try (ReceiptStore receiptStore = new ReceiptStore(receiptsDirectory) {
+                 @Override
+                 public void save(Receipt receipt) {
+                     if (failing.contains(receipt.getId())) throw new RuntimeException("Error saving receipt " + receipt.getId());
+                     super.save(receipt);
+                 }
+             };
+             AsyncReceiptWriter receiptWriter = new AsyncReceiptWriter(receiptStore, 8, 6)) {
+            for (Receipt receipt : receipts) {
+                receiptWriter.submit(receipt, cashier.getName(), productCatalog);
+            }
+
+            RuntimeException e = assertThrows(RuntimeException.class, receiptWriter::flush);
+            for (String receiptId : failing) {
+                assertTrue(e.getMessage().contains(receiptId));
+            }
+            assertEquals(2, e.getSuppressed().length);
+            assertEquals(4, receiptWriter.getPersistedCount());
+            for (Receipt receipt : receipts) {
+                assertEquals(!failing.contains(receipt.getId()), receiptStore.getJournal().contains(receipt.getId()));
+            }
+            receiptWriter.flush();
+        }
+    }
+
+    @Test
+    void testPartialPurchaseSpendsOnlyWholeCentsOfASubCentBudget_INTEGRATION() {
+        Customer customer = basketOf(new BigDecimal("25.005"), "MILK", 10, "BEANS", 10);
+
+        PartialPurchase purchase = cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.CHEAPEST_FIRST);
+
+        assertEquals(new BigDecimal("24.48"), purchase.getReceipt().getTotal());
+        assertEquals(Map.of("BEANS", 10, "MILK", 6), purchase.getReceipt().getItems());
+        assertEquals(4, purchase.getDroppedLines().get(0).getQuantity());
+        assertEquals(4, shopServiceImpl.getProductQuantity(shop, "MILK"));
+    }
+
+    @Test
+    void testPartialPurchaseKeepsMostItemsWithinBudget_INTEGRATION() {
+        Customer customer = basketOf(BigDecimal.valueOf(12), "MILK", 4, "BEANS", 10);
+
+        PartialPurchase purchase = cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.CHEAPEST_FIRST);
+
+        assertEquals(new BigDecimal("11.33"), purchase.getReceipt().getTotal());
+        assertEquals(Map.of("BEANS", 10, "MILK", 1), purchase.getReceipt().getItems());
+        assertEquals(1, purchase.getDroppedLines().size());
+        assertEquals("MILK", purchase.getDroppedLines().get(0).getProductId());
+        assertEquals(3, purchase.getDroppedLines().get(0).getQuantity());
+        assertEquals(new BigDecimal("7.89"), purchase.getDroppedLines().get(0).getPrice());
+        assertEquals(9, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(10, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
+    @Test
+    void testPartialPurchaseKeepsMostValueWithinBudget_INTEGRATION() {
+        Customer customer = basketOf(BigDecimal.valueOf(12), "MILK", 4, "BEANS", 10);
+
+        PartialPurchase purchase = cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.DEAREST_FIRST);
+
+        assertEquals(new BigDecimal("11.39"), purchase.getReceipt().getTotal());
+        assertEquals(Map.of("MILK", 4, "BEANS", 1), purchase.getReceipt().getItems());
+        assertEquals(9, purchase.getDroppedLines().get(0).getQuantity());
+        assertEquals(19, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
+    @Test
+    void testPartialPurchaseFollowsProductPriority_INTEGRATION() {
+        Customer customer = basketOf(BigDecimal.valueOf(14), "MILK", 4, "BEANS", 10);
+        new CustomerServiceImpl().addProductToBasket(customer, shop, productCatalog, "BREAD", 2, shopServiceImpl);
+
+        PartialPurchase purchase = cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.byPriority(List.of("BREAD", "MILK")));
+
+        assertEquals(new BigDecimal("14.00"), purchase.getReceipt().getTotal());
+        assertEquals(Map.of("BREAD", 2, "MILK", 3, "BEANS", 3), purchase.getReceipt().getItems());
+        assertEquals(List.of("MILK", "BEANS"), purchase.getDroppedLines().stream().map(BasketLine::getProductId).toList());
+    }
+
+    @Test
+    void testPartialPurchaseWithinBudgetDropsNothing_INTEGRATION() {
+        Customer customer = basketOf(BigDecimal.valueOf(50), "MILK", 4, "BEANS", 10);
+
+        PartialPurchase purchase = cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.CHEAPEST_FIRST);
+
+        assertEquals(new BigDecimal("19.22"), purchase.getReceipt().getTotal());
+        assertTrue(purchase.getDroppedLines().isEmpty());
+        assertEquals(6, shopServiceImpl.getProductQuantity(shop, "MILK"));
+    }
+
+    @Test
+    void testPartialPurchaseRejectsBasketWhenNothingFits_INTEGRATION() {
+        Customer customer = basketOf(new BigDecimal("0.50"), "MILK", 1, "BEANS", 1);
+
+        assertThrows(InsufficientFundsException.class, () -> cashierDeskServiceImpl.processPartialPurchase(shop, productCatalog,
+                customer.getBasket(), customer.getBudget(), cashierDesk, BasketLine.CHEAPEST_FIRST));
+
+        assertTrue(customer.getBasket().getItems().isEmpty());
+        assertEquals(10, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(20, shopServiceImpl.getProductQuantity(shop, "BEANS"));
+    }
+
+    private Customer basketOf(BigDecimal budget, String firstProductId, int firstAmount, String secondProductId, int secondAmount) {
+        Customer customer = new Customer();
+        customer.setBudget(budget);
+        CustomerServiceImpl customerServiceImpl = new CustomerServiceImpl();
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, firstProductId, firstAmount, shopServiceImpl);
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, secondProductId, secondAmount, shopServiceImpl);
+        return customer;
+    }
+}
@@ -4,11 +4,13 @@ import com.shop.exception.InsufficientFundsException;
 import com.shop.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -42,10 +44,13 @@ class CashierDeskServiceImplTestUnit {
     @Mock
     private Cashier cashier;
 
+    @TempDir
+    Path receipts;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl);
+        cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(receipts));
         mockCashierDeskServiceImpl = Mockito.spy(cashierDeskServiceImpl);
 
         when(cashierDesk.getCashier()).thenReturn(cashier);
@@ -71,7 +76,7 @@ class CashierDeskServiceImplTestUnit {
         assertEquals(BigDecimal.valueOf(50).setScale(2), total);
 
         verify(productCatalog).getProductCatalog();
-        verify(shopServiceImpl, times(2)).getProductPrice(eq(shop), eq(productCatalog), eq(productId), any());
+        verify(shopServiceImpl, times(1)).getProductPrice(eq(shop), eq(productCatalog), eq(productId), any());
         verify(basket).getItems();
     }
 
@@ -88,6 +93,56 @@ class CashierDeskServiceImplTestUnit {
         verify(basket).getItems();
     }
 
+    @Test
+    void testProcessPurchaseChecksBudgetAgainstRunningTotalWhenPricesAreUnchanged_UNIT() {
+        Basket pricedBasket = new Basket();
+        pricedBasket.setRunningTotal(BigDecimal.valueOf(100));
+        pricedBasket.setPriceVersion(3);
+        pricedBasket.setPricedOn(DateWrapper.currentDate());
+        when(shopServiceImpl.getPriceVersion()).thenReturn(3L);
+
+        assertThrows(InsufficientFundsException.class, () ->
+                mockCashierDeskServiceImpl.processPurchase(shop, productCatalog, pricedBasket, BigDecimal.valueOf(50), cashierDesk)
+        );
+
+        verify(mockCashierDeskServiceImpl, never()).getTotalBasketPrice(any(), any(), any());
+        assertEquals(BigDecimal.ZERO, pricedBasket.getRunningTotal());
+    }
+
+    @Test
+    void testProcessPurchaseRepricesBasketPricedOnAnotherDay_UNIT() {
+        Basket pricedBasket = new Basket();
+        pricedBasket.setRunningTotal(BigDecimal.valueOf(20));
+        pricedBasket.setPriceVersion(3);
+        pricedBasket.setPricedOn(DateWrapper.currentDate().minusDays(1));
+        when(shopServiceImpl.getPriceVersion()).thenReturn(3L);
+        doReturn(BigDecimal.valueOf(100)).when(mockCashierDeskServiceImpl).getTotalBasketPrice(any(), any(), any());
+
+        assertThrows(InsufficientFundsException.class, () ->
+                mockCashierDeskServiceImpl.processPurchase(shop, productCatalog, pricedBasket, BigDecimal.valueOf(50), cashierDesk)
+        );
+
+        verify(mockCashierDeskServiceImpl).getTotalBasketPrice(shop, productCatalog, pricedBasket);
+    }
+
+    @Test
+    void testProcessPurchaseRepricesBasketWhenPricesChanged_UNIT() {
+        Basket pricedBasket = new Basket();
+        pricedBasket.setRunningTotal(BigDecimal.valueOf(100));
+        pricedBasket.setPriceVersion(3);
+        pricedBasket.setPricedOn(DateWrapper.currentDate());
+        when(shopServiceImpl.getPriceVersion()).thenReturn(4L);
+        doReturn(BigDecimal.valueOf(40)).when(mockCashierDeskServiceImpl).getTotalBasketPrice(any(), any(), any());
+        doReturn(mock(Receipt.class)).when(mockCashierDeskServiceImpl).createReceipt(eq(cashier), eq(pricedBasket), any());
+        doNothing().when(mockCashierDeskServiceImpl).printReceipt(any());
+        doNothing().when(mockCashierDeskServiceImpl).saveReceiptAsText(any(), any(), any());
+
+        mockCashierDeskServiceImpl.processPurchase(shop, productCatalog, pricedBasket, BigDecimal.valueOf(50), cashierDesk);
+
+        verify(mockCashierDeskServiceImpl).getTotalBasketPrice(shop, productCatalog, pricedBasket);
+        verify(mockCashierDeskServiceImpl).createReceipt(cashier, pricedBasket, BigDecimal.valueOf(40));
+    }
+
     @Test
     void testProcessPurchaseCreatesReceiptOnSuccess_UNIT() {
         Receipt receipt = new Receipt();
@@ -95,9 +150,9 @@ class CashierDeskServiceImplTestUnit {
         when(cashierDesk.getCashier()).thenReturn(cashier);
         when(cashier.getName()).thenReturn("John");
         when(basket.getItems()).thenReturn(new HashMap<>());
-        when(mockCashierDeskServiceImpl.createReceipt(cashier, shop, productCatalog, basket)).thenReturn(receipt);
+        doReturn(receipt).when(mockCashierDeskServiceImpl).createReceipt(eq(cashier), eq(basket), any());
         Mockito.doNothing().when(mockCashierDeskServiceImpl).printReceipt(receipt);
-        Mockito.doNothing().when(mockCashierDeskServiceImpl).saveReceiptAsText(eq(receipt), anyString());
+        Mockito.doNothing().when(mockCashierDeskServiceImpl).saveReceiptAsText(eq(receipt), anyString(), eq(productCatalog));
 
         assertDoesNotThrow(() ->
                 mockCashierDeskServiceImpl.processPurchase(shop, productCatalog, basket, BigDecimal.valueOf(100), cashierDesk)
@@ -106,9 +161,10 @@ class CashierDeskServiceImplTestUnit {
         verify(cashierDesk, atLeastOnce()).getCashier();
         verify(cashier, atLeastOnce()).getName();
         verify(basket, atLeastOnce()).getItems();
-        verify(mockCashierDeskServiceImpl, atLeastOnce()).createReceipt(cashier, shop, productCatalog, basket);
+        verify(mockCashierDeskServiceImpl, atLeastOnce()).createReceipt(eq(cashier), eq(basket), any());
+        verify(mockCashierDeskServiceImpl, times(1)).getTotalBasketPrice(shop, productCatalog, basket);
         verify(mockCashierDeskServiceImpl, atLeastOnce()).printReceipt(receipt);
-        verify(mockCashierDeskServiceImpl, atLeastOnce()).saveReceiptAsText(eq(receipt), anyString());
+        verify(mockCashierDeskServiceImpl, atLeastOnce()).saveReceiptAsText(eq(receipt), anyString(), eq(productCatalog));
 
     }
 
@@ -163,7 +219,9 @@ class CashierDeskServiceImplTestUnit {
         assertEquals("John", receipt.getCashierName());
         assertEquals(BigDecimal.ZERO.setScale(2), receipt.getTotal());
 
+        assertEquals(List.of(), receipt.getLines());
+
         verify(cashier).getName();
-        verify(basket, times(2)).getItems();
+        verify(basket, times(3)).getItems();
     }
 }
\ No newline at end of file
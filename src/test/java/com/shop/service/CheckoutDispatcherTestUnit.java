@@ -0,0 +1,118 @@
+package com.shop.service;
+
+import com.shop.exception.InsufficientFundsException;
+import com.shop.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckoutDispatcherTestUnit {
+    @Mock
+    private CashierDeskServiceImpl cashierDeskServiceImpl;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private Shop shop;
+    private CashierDesk firstDesk;
+    private CashierDesk secondDesk;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        shop = new Shop();
+        firstDesk = new CashierDesk();
+        firstDesk.setCashier(new Cashier("C001", "John Smith", BigDecimal.valueOf(1500)));
+        secondDesk = new CashierDesk();
+        secondDesk.setCashier(new Cashier("C002", "Jane Doe", BigDecimal.valueOf(2000)));
+        shop.getCashierDesks().add(firstDesk);
+        shop.getCashierDesks().add(secondDesk);
+    }
+
+    @Test
+    void testSubmitPlacesCustomerAtDeskWithLeastQueuedWork_UNIT() {
+        firstDesk.getCustomers().add(customer(3));
+        CheckoutDispatcher dispatcher = new CheckoutDispatcher(cashierDeskServiceImpl, shop, productCatalog);
+
+        assertEquals(1, dispatcher.submit(customer(1)));
+        assertEquals(1, dispatcher.submit(customer(0)));
+        assertEquals(1, dispatcher.submit(customer(0)));
+        assertEquals(0, dispatcher.submit(customer(0)));
+
+        assertArrayEquals(new int[]{2, 3}, dispatcher.getQueueDepths());
+        assertEquals(5, dispatcher.getQueuedWork(0));
+        assertEquals(4, dispatcher.getQueuedWork(1));
+        assertEquals(3, secondDesk.getCustomers().size());
+    }
+
+    @Test
+    void testCheckoutAllLetsIdleDeskTakeCustomersFromBusyDesk_UNIT() throws Exception {
+        CountDownLatch stolen = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(4) == firstDesk) assertTrue(stolen.await(10, TimeUnit.SECONDS));
+            else stolen.countDown();
+            return null;
+        }).when(cashierDeskServiceImpl).processPurchase(any(), any(), any(), any(), any());
+
+        for (int i = 0; i < 10; i++) {
+            firstDesk.getCustomers().add(customer(1));
+        }
+        CheckoutDispatcher dispatcher = new CheckoutDispatcher(cashierDeskServiceImpl, shop, productCatalog);
+
+        dispatcher.checkoutAll();
+
+        assertTrue(firstDesk.getCustomers().isEmpty());
+        assertArrayEquals(new int[]{0, 0}, dispatcher.getQueueDepths());
+        assertEquals(0, dispatcher.getQueuedWork(0));
+        assertEquals(10, dispatcher.getCustomersServed(0) + dispatcher.getCustomersServed(1));
+        assertTrue(dispatcher.getCustomersStolen(1) > 0);
+        assertEquals(dispatcher.getCustomersServed(1), dispatcher.getCustomersStolen(1));
+        verify(cashierDeskServiceImpl, times(10)).processPurchase(eq(shop), eq(productCatalog), any(), any(), any());
+    }
+
+    @Test
+    void testCheckoutAllServesEveryCustomerBeforeReportingRejections_UNIT() {
+        Customer poorCustomer = customer(1);
+        doThrow(new InsufficientFundsException("insufficient"))
+                .when(cashierDeskServiceImpl).processPurchase(any(), any(), same(poorCustomer.getBasket()), any(), any());
+
+        CheckoutDispatcher dispatcher = new CheckoutDispatcher(cashierDeskServiceImpl, shop, productCatalog);
+        dispatcher.submit(customer(2));
+        dispatcher.submit(poorCustomer);
+        dispatcher.submit(customer(1));
+
+        assertThrows(InsufficientFundsException.class, dispatcher::checkoutAll);
+
+        assertTrue(firstDesk.getCustomers().isEmpty());
+        assertTrue(secondDesk.getCustomers().isEmpty());
+        verify(cashierDeskServiceImpl, times(3)).processPurchase(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testSubmitFailsWithoutCashierDesks_UNIT() {
+        CheckoutDispatcher dispatcher = new CheckoutDispatcher(cashierDeskServiceImpl, new Shop(), productCatalog);
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.submit(customer(1)));
+    }
+
+    private static Customer customer(int lines) {
+        Basket basket = new Basket();
+        for (int line = 0; line < lines; line++) {
+            PriorityQueue<Batch> batches = new PriorityQueue<>();
+            batches.add(new Batch(LocalDate.of(2023, 5, 15), 1));
+            basket.getItems().put("P" + line, batches);
+        }
+        return new Customer(BigDecimal.valueOf(100), basket);
+    }
+}
@@ -0,0 +1,87 @@
+package com.shop.service;
+
+import com.shop.exception.InsufficientFundsException;
+import com.shop.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckoutExecutorTestUnit {
+    @Mock
+    private CashierDeskServiceImpl cashierDeskServiceImpl;
+
+    @Mock
+    private Shop shop;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private CashierDesk cashierDesk;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testProcessPurchaseForAllCustomersRunsCheckoutsConcurrentlyUpToLimit_UNIT() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        CountDownLatch limitReached = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            int now = running.incrementAndGet();
+            mostRunning.accumulateAndGet(now, Math::max);
+            if (now == 4) limitReached.countDown();
+            assertTrue(limitReached.await(10, TimeUnit.SECONDS));
+            running.decrementAndGet();
+            return null;
+        }).when(cashierDeskServiceImpl).processPurchase(any(), any(), any(), any(), any());
+
+        try (CheckoutExecutor checkoutExecutor = new CheckoutExecutor(cashierDeskServiceImpl, 4)) {
+            checkoutExecutor.processPurchaseForAllCustomers(shop, productCatalog, customers(100), cashierDesk);
+
+            assertEquals(4, mostRunning.get());
+            assertEquals(0, checkoutExecutor.getActiveCheckouts());
+        }
+        verify(cashierDeskServiceImpl, times(100)).processPurchase(eq(shop), eq(productCatalog), any(), any(), eq(cashierDesk));
+    }
+
+    @Test
+    void testProcessPurchaseForAllCustomersCompletesOtherCheckoutsBeforeRethrowing_UNIT() {
+        List<Customer> customers = customers(10);
+        doThrow(new InsufficientFundsException("insufficient"))
+                .when(cashierDeskServiceImpl).processPurchase(any(), any(), same(customers.get(3).getBasket()), any(), any());
+
+        try (CheckoutExecutor checkoutExecutor = new CheckoutExecutor(cashierDeskServiceImpl, 2)) {
+            assertThrows(InsufficientFundsException.class,
+                    () -> checkoutExecutor.processPurchaseForAllCustomers(shop, productCatalog, customers, cashierDesk));
+        }
+        verify(cashierDeskServiceImpl, times(10)).processPurchase(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testConstructorRejectsNonPositiveLimit_UNIT() {
+        assertThrows(IllegalArgumentException.class, () -> new CheckoutExecutor(cashierDeskServiceImpl, 0));
+    }
+
+    private static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            customers.add(new Customer(BigDecimal.TEN, new Basket()));
+        }
+        return customers;
+    }
+}
@@ -1,16 +1,23 @@
 package com.shop.service;
 
+import com.shop.exception.InsufficientFundsException;
 import com.shop.exception.OutOfStockException;
 import com.shop.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.PriorityQueue;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class CustomerServiceImplTestIntegration {
@@ -23,6 +30,9 @@ class CustomerServiceImplTestIntegration {
     Customer customer;
     Shop shop;
 
+    @TempDir
+    Path receipts;
+
     @BeforeEach
     void setUp() {
         customerServiceImpl = new CustomerServiceImpl();
@@ -56,6 +66,111 @@ class CustomerServiceImplTestIntegration {
         assertThrows(OutOfStockException.class, () -> customerServiceImpl.addProductToBasket(customer, shop, "MILK", 30, shopServiceImpl));
     }
 
+    @Test
+    void testAddProductToBasketKeepsRunningTotalAfterEveryScan_INTEGRATION() {
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 16, shopServiceImpl);
+        assertEquals(new BigDecimal("112.48"), customer.getBasket().getRunningTotal());
+
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 4, shopServiceImpl);
+        assertEquals(new BigDecimal("140.60"), customer.getBasket().getRunningTotal());
+        assertEquals(shopServiceImpl.getPriceVersion(), customer.getBasket().getPriceVersion());
+        assertEquals(new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(receipts)).getTotalBasketPrice(shop, productCatalog, customer.getBasket()),
+                customer.getBasket().getRunningTotal());
+    }
+
+    @Test
+    void testAddProductToBasketRepricesWholeBasketAfterPriceChange_INTEGRATION() {
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 16, shopServiceImpl);
+        long pricedAt = customer.getBasket().getPriceVersion();
+
+        shopServiceImpl.setProductPrice(productCatalog, "MILK", new BigDecimal("10.00"));
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 1, shopServiceImpl);
+
+        assertEquals(new BigDecimal("149.60"), customer.getBasket().getRunningTotal());
+        assertEquals(pricedAt + 1, customer.getBasket().getPriceVersion());
+    }
+
+    @Test
+    void testAddProductToBasketWithoutCatalogLeavesBasketUnpriced_INTEGRATION() {
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 1, shopServiceImpl);
+        customerServiceImpl.addProductToBasket(customer, shop, "MILK", 1, shopServiceImpl);
+
+        assertEquals(Basket.UNPRICED, customer.getBasket().getPriceVersion());
+    }
+
+    @Test
+    void testBudgetAwareModeRefusesUnaffordableLineWithoutTouchingStock_INTEGRATION() {
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+        customer.setBudget(new BigDecimal("150.00"));
+        CustomerServiceImpl budgetAware = new CustomerServiceImpl(true);
+        budgetAware.addProductToBasket(customer, shop, productCatalog, "MILK", 16, shopServiceImpl);
+        List<StockEvent> events = new ArrayList<>();
+        shopServiceImpl.addStockListener((changedShop, event) -> events.add(event));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> budgetAware.addProductToBasket(customer, shop, productCatalog, "MILK", 6, shopServiceImpl));
+
+        assertTrue(events.isEmpty());
+        assertEquals(9, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(new BigDecimal("112.48"), customer.getBasket().getRunningTotal());
+        assertEquals(16, customer.getBasket().getItems().get("MILK").stream().mapToInt(Batch::getQuantity).sum());
+    }
+
+    @Test
+    void testBudgetAwareModeReturnsLineWhenBatchesTakenCostTooMuch_INTEGRATION() {
+        Shop freshShop = new Shop();
+        freshShop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        freshShop.setDiscountPercentage(new BigDecimal("0.20"));
+        freshShop.setDaysBeforeExpityDiscount(3);
+        shopServiceImpl.addProduct(freshShop, "MILK", 10, LocalDate.now());
+        customer.setBudget(new BigDecimal("16.00"));
+        CustomerServiceImpl budgetAware = new CustomerServiceImpl(true);
+
+        assertThrows(InsufficientFundsException.class,
+                () -> budgetAware.addProductToBasket(customer, freshShop, productCatalog, "MILK", 2, shopServiceImpl));
+        assertEquals(10, shopServiceImpl.getProductQuantity(freshShop, "MILK"));
+        assertTrue(customer.getBasket().getItems().isEmpty());
+
+        budgetAware.addProductToBasket(customer, freshShop, productCatalog, "MILK", 1, shopServiceImpl);
+        assertEquals(new BigDecimal("8.79"), customer.getBasket().getRunningTotal());
+        assertEquals(9, shopServiceImpl.getProductQuantity(freshShop, "MILK"));
+    }
+
+    @Test
+    void testBudgetAwareModeComparesSubCentBudgetsByWholeCents_INTEGRATION() {
+        Shop freshShop = new Shop();
+        freshShop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shopServiceImpl.addProduct(freshShop, "MILK", 10, LocalDate.now());
+        CustomerServiceImpl budgetAware = new CustomerServiceImpl(true);
+
+        customer.setBudget(new BigDecimal("8.785"));
+        assertThrows(InsufficientFundsException.class,
+                () -> budgetAware.addProductToBasket(customer, freshShop, productCatalog, "MILK", 1, shopServiceImpl));
+        assertEquals(10, shopServiceImpl.getProductQuantity(freshShop, "MILK"));
+
+        customer.setBudget(new BigDecimal("8.795"));
+        budgetAware.addProductToBasket(customer, freshShop, productCatalog, "MILK", 1, shopServiceImpl);
+        assertEquals(new BigDecimal("8.79"), customer.getBasket().getRunningTotal());
+    }
+
+    @Test
+    void testDefaultModeLeavesBudgetToCheckout_INTEGRATION() {
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+        customer.setBudget(BigDecimal.ONE);
+
+        customerServiceImpl.addProductToBasket(customer, shop, productCatalog, "MILK", 16, shopServiceImpl);
+
+        assertEquals(new BigDecimal("112.48"), customer.getBasket().getRunningTotal());
+    }
+
     @Test
     void testAddProductToBasketAddsCorrectProductToBasket_INTEGRATION() {
         customerServiceImpl.addProductToBasket(customer, shop, "MILK", 16, shopServiceImpl);
@@ -63,4 +178,23 @@ class CustomerServiceImplTestIntegration {
         assertEquals(1, shop.getStockBatches().get("MILK").size());
         assertEquals(9, shopServiceImpl.getProductQuantity(shop, "MILK"));
     }
+
+    @Test
+    void testAddProductToBasketDoesNotShareBatchesWithStock_INTEGRATION() {
+        customerServiceImpl.addProductToBasket(customer, shop, "MILK", 16, shopServiceImpl);
+
+        PriorityQueue<Batch> basketMilk = customer.getBasket().getItems().get("MILK");
+        assertEquals(16, basketMilk.stream().mapToInt(Batch::getQuantity).sum());
+
+        customerServiceImpl.addProductToBasket(customer, shop, "MILK", 4, shopServiceImpl);
+
+        assertEquals(20, basketMilk.stream().mapToInt(Batch::getQuantity).sum());
+        assertEquals(5, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        for (Batch batch : basketMilk) {
+            assertFalse(shop.getStockBatches().get("MILK").contains(batch));
+        }
+
+        shopServiceImpl.releaseProduct(shop, "MILK", basketMilk);
+        assertEquals(25, shopServiceImpl.getProductQuantity(shop, "MILK"));
+    }
 }
\ No newline at end of file
@@ -8,8 +8,8 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Map;
-import java.util.PriorityQueue;
+import java.time.LocalDate;
+import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -47,33 +47,22 @@ class CustomerServiceImplTestUnit {
     void testAddProductToBasketAddsCorrectProductToBasket_UNIT() {
         Basket basket = new Basket();
 
-        Batch batch1 = mock(Batch.class);
-        Batch batch2 = mock(Batch.class);
-
-        Map<String, PriorityQueue<Batch>> stockBatches = mock(Map.class);
-        PriorityQueue<Batch> milkBatches = new PriorityQueue<>();
-        milkBatches.add(batch1);
-        milkBatches.add(batch2);
+        Batch batch1 = new Batch(LocalDate.of(2023, 5, 7), 10);
+        Batch batch2 = new Batch(LocalDate.of(2023, 5, 12), 5);
 
         when(shopServiceImpl.getProductQuantity(shop, "MILK")).thenReturn(25);
         when(customer.getBasket()).thenReturn(basket);
-        when(shop.getStockBatches()).thenReturn(stockBatches);
-        when(stockBatches.get("MILK")).thenReturn(milkBatches);
-
-        when(batch1.getQuantity()).thenReturn(10);
-        when(batch2.getQuantity()).thenReturn(10);
-        Mockito.doNothing().when(shopServiceImpl).removeProduct(shop, "MILK", 15);
+        when(shopServiceImpl.reserveProduct(shop, "MILK", 15)).thenReturn(List.of(batch1, batch2));
 
         customerServiceImpl.addProductToBasket(customer, shop, "MILK", 15, shopServiceImpl);
 
         assertEquals(2, basket.getItems().get("MILK").size());
+        assertEquals(15, basket.getItems().get("MILK").stream().mapToInt(Batch::getQuantity).sum());
 
         verify(shopServiceImpl).getProductQuantity(shop, "MILK");
         verify(customer).getBasket();
-        verify(shop).getStockBatches();
-        verify(stockBatches).get("MILK");
-        verify(batch1).getQuantity();
-        verify(batch2).getQuantity();
-        verify(shopServiceImpl).removeProduct(shop, "MILK", 15);
+        verify(shopServiceImpl).reserveProduct(shop, "MILK", 15);
+        verify(shopServiceImpl, never()).removeProduct(any(), any(), anyInt());
+        verifyNoInteractions(shop);
     }
-}
\ No newline at end of file
+}
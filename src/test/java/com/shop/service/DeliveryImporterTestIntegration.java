@@ -0,0 +1,91 @@
+package com.shop.service;
+
+import com.shop.model.ImportReport;
+import com.shop.model.Shop;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryImporterTestIntegration {
+    private ShopServiceImpl shopServiceImpl;
+    private Shop shop;
+
+    @BeforeEach
+    void setUp() {
+        shopServiceImpl = new ShopServiceImpl();
+        shop = new Shop();
+    }
+
+    @Test
+    void testImportDeliveryStocksValidLinesAndReportsRejectedOnes_INTEGRATION(@TempDir Path directory) throws Exception {
+        Path manifest = directory.resolve("delivery.csv");
+        Files.writeString(manifest, String.join("\n",
+                "productId,arrivalDate,quantity",
+                "MILK,2023-05-15,10",
+                " BREAD , 2023-05-14 , 4 \r",
+                "",
+                "MILK,2023-05-15,5",
+                "MILK,2023-02-30,5",
+                "MILK,15/05/2023,5",
+                "BREAD,2023-05-14,-3",
+                "BREAD,2023-05-14,99999999999",
+                ",2023-05-14,1",
+                "BEANS;2023-05-14;1",
+                "ÄPFEL,2023-05-13,7"), StandardCharsets.UTF_8);
+
+        ImportReport report = new DeliveryImporter(shopServiceImpl, 2).importDelivery(shop, manifest);
+
+        assertEquals(4, report.getAcceptedLines());
+        assertEquals(6, report.getRejectedLines());
+        assertEquals(Files.size(manifest), report.getBytesRead());
+        assertEquals(List.of(
+                "line 6: invalid arrival date '2023-02-30'",
+                "line 7: invalid arrival date '15/05/2023'",
+                "line 8: invalid quantity '-3'",
+                "line 9: invalid quantity '99999999999'",
+                "line 10: missing product id",
+                "line 11: expected productId,arrivalDate,quantity but was 'BEANS;2023-05-14;1'"), report.getRejections());
+
+        assertEquals(15, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(LocalDate.of(2023, 5, 15), shop.getStockBatches().get("MILK").peek().getArrivalDate());
+        assertEquals(4, shopServiceImpl.getProductQuantity(shop, "BREAD"));
+        assertEquals(LocalDate.of(2023, 5, 14), shop.getStockBatches().get("BREAD").peek().getArrivalDate());
+        assertEquals(7, shopServiceImpl.getProductQuantity(shop, "ÄPFEL"));
+    }
+
+    @Test
+    void testImportDeliveryHandlesLinesAcrossBufferBoundaries_INTEGRATION(@TempDir Path directory) throws Exception {
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            manifest.append("PRODUCT-").append(i % 10).append(',').append(LocalDate.of(2023, 1, 1).plusDays(i % 7)).append(",1\n");
+        }
+        manifest.append("X".repeat(100)).append(",2023-01-01,1\n");
+        manifest.append("PRODUCT-0,2023-01-01,1000");
+        Path file = directory.resolve("delivery.csv");
+        Files.writeString(file, manifest);
+
+        ImportReport report = new DeliveryImporter(shopServiceImpl, 64, 48).importDelivery(shop, file);
+
+        assertEquals(1001, report.getAcceptedLines());
+        assertEquals(List.of("line 1001: line longer than 48 bytes"), report.getRejections());
+        assertEquals(1100, shopServiceImpl.getProductQuantity(shop, "PRODUCT-0"));
+        for (int i = 1; i < 10; i++) {
+            assertEquals(100, shopServiceImpl.getProductQuantity(shop, "PRODUCT-" + i));
+        }
+        assertTrue(report.getLinesPerSecond() > 0);
+    }
+
+    @Test
+    void testImportDeliveryFailsForMissingFile_INTEGRATION(@TempDir Path directory) {
+        assertThrows(RuntimeException.class,
+                () -> new DeliveryImporter(shopServiceImpl).importDelivery(shop, directory.resolve("missing.csv")));
+    }
+}
@@ -0,0 +1,144 @@
+package com.shop.service;
+
+import com.shop.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoneyTestUnit {
+    private final Random random = new Random(42);
+
+    @TempDir
+    Path receipts;
+
+    @Test
+    void testMultiplyRoundsHalfUpLikeBigDecimal_UNIT() {
+        assertEquals(329, Money.multiply(new BigDecimal("2.99"), new BigDecimal("1.10")));
+        assertEquals(1, Money.multiply(new BigDecimal("0.01"), new BigDecimal("0.5")));
+        assertEquals(0, Money.multiply(new BigDecimal("0.01"), new BigDecimal("0.49")));
+        assertEquals(-1, Money.multiply(new BigDecimal("-0.01"), new BigDecimal("0.5")));
+        assertEquals(0, Money.multiply(new BigDecimal("-0.01"), new BigDecimal("0.49")));
+        assertEquals(200000, Money.multiply(new BigDecimal("2E+3"), BigDecimal.ONE));
+    }
+
+    @Test
+    void testToCentsRoundedDownDropsFractionsOfACent_UNIT() {
+        assertEquals(10000, Money.toCentsRoundedDown(new BigDecimal("100.005")));
+        assertEquals(10000, Money.toCentsRoundedDown(new BigDecimal("100.009")));
+        assertEquals(10000, Money.toCentsRoundedDown(new BigDecimal("100")));
+        assertEquals(1, Money.toCentsRoundedDown(new BigDecimal("0.01")));
+    }
+
+    @Test
+    void testMultiplyFallsBackForAmountsThatDoNotFitCents_UNIT() {
+        BigDecimal subCent = new BigDecimal("7.999");
+        BigDecimal factor = new BigDecimal("1.1");
+
+        assertEquals(expectedCents(subCent.multiply(factor)), Money.multiply(subCent, factor));
+
+        BigDecimal huge = new BigDecimal("92233720368547758.07");
+        BigDecimal small = new BigDecimal("0.0001");
+        assertEquals(expectedCents(huge.multiply(small)), Money.multiply(huge, small));
+    }
+
+    @Test
+    void testMultiplyMatchesBigDecimalForRandomPrices_UNIT() {
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+            BigDecimal markup = BigDecimal.valueOf(random.nextInt(200), random.nextInt(4));
+            BigDecimal discount = BigDecimal.valueOf(random.nextInt(100), 2);
+            BigDecimal factor = markup.add(BigDecimal.ONE).multiply(BigDecimal.ONE.subtract(discount));
+
+            assertEquals(expectedCents(price.multiply(factor)), Money.multiply(price, factor));
+        }
+    }
+
+    @Test
+    void testSubtractMatchesBigDecimal_UNIT() {
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal income = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(3));
+            BigDecimal cost = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(5));
+
+            assertEquals(income.subtract(cost).setScale(2, RoundingMode.HALF_UP), Money.subtract(income, cost));
+        }
+    }
+
+    @Test
+    void testPricingMatchesThePreviousBigDecimalImplementation_UNIT() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        CashierDeskServiceImpl cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(receipts));
+        LocalDate today = DateWrapper.currentDate();
+
+        for (int round = 0; round < 200; round++) {
+            Shop shop = new Shop();
+            shop.setDaysBeforeExpityDiscount(random.nextInt(10));
+            shop.setDiscountPercentage(BigDecimal.valueOf(random.nextInt(100), 2));
+            shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(random.nextInt(100), 2));
+            shop.getMarkupPercentage().put(Category.NON_FOOD, BigDecimal.valueOf(random.nextInt(1000), 3));
+
+            ProductCatalog productCatalog = new ProductCatalog();
+            Basket basket = new Basket();
+            for (int p = 0; p < 10; p++) {
+                String productId = "P" + p;
+                BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000), 2);
+                Product product = p % 2 == 0
+                        ? new PerishableProduct(productId, productId, price, Category.FOOD, random.nextInt(15))
+                        : new NonPerishableProduct(productId, productId, price, Category.NON_FOOD);
+                productCatalog.getProductCatalog().put(productId, product);
+
+                PriorityQueue<Batch> batches = new PriorityQueue<>();
+                for (int b = 0; b < 3; b++) {
+                    batches.add(new Batch(today.minusDays(random.nextInt(20)), 1 + random.nextInt(50)));
+                }
+                basket.getItems().put(productId, batches);
+
+                LocalDate date = today.plusDays(random.nextInt(20) - 5);
+                assertEquals(referenceProductPrice(shop, product, date),
+                        shopServiceImpl.getProductPrice(shop, productCatalog, productId, date));
+            }
+
+            assertEquals(referenceBasketPrice(shop, productCatalog, basket),
+                    cashierDeskServiceImpl.getTotalBasketPrice(shop, productCatalog, basket));
+
+            BigDecimal income = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            BigDecimal deliveryCost = BigDecimal.valueOf(random.nextInt(10_000_000), random.nextInt(4));
+            assertEquals(income.subtract(deliveryCost).setScale(2, RoundingMode.HALF_UP),
+                    shopServiceImpl.getProfit(shop, income, deliveryCost));
+        }
+    }
+
+    private static long expectedCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal referenceProductPrice(Shop shop, Product product, LocalDate date) {
+        BigDecimal finalPrice = product.getPrice();
+        finalPrice = finalPrice.multiply(shop.getMarkupPercentage().get(product.getCategory()).add(BigDecimal.ONE));
+
+        if (date.isBefore(DateWrapper.currentDate().plusDays(shop.getDaysBeforeExpityDiscount()))) {
+            finalPrice = finalPrice.multiply(BigDecimal.ONE.subtract(shop.getDiscountPercentage()));
+        }
+        return finalPrice.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal referenceBasketPrice(Shop shop, ProductCatalog productCatalog, Basket basket) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<String, PriorityQueue<Batch>> entry : basket.getItems().entrySet()) {
+            Product product = productCatalog.getProductCatalog().get(entry.getKey());
+            for (Batch batch : entry.getValue()) {
+                LocalDate expirationDate = product instanceof PerishableProduct perishable
+                        ? batch.getArrivalDate().plusDays(perishable.getExpirationDays())
+                        : DateWrapper.currentDate();
+                total = total.add(referenceProductPrice(shop, product, expirationDate).multiply(BigDecimal.valueOf(batch.getQuantity())));
+            }
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,148 @@
+package com.shop.service;
+
+import com.shop.exception.OutOfStockException;
+import com.shop.exception.ProductNotFoundException;
+import com.shop.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedShopServiceImplTestIntegration {
+    private static final LocalDate TODAY = DateWrapper.currentDate();
+
+    private ShopServiceImpl shopServiceImpl;
+    private PackedShopServiceImpl packedShopServiceImpl;
+    private Shop shop;
+    private Shop packedShop;
+    private ProductCatalog productCatalog;
+
+    @TempDir
+    Path receipts;
+
+    @BeforeEach
+    void setUp() {
+        shopServiceImpl = new ShopServiceImpl();
+        packedShopServiceImpl = new PackedShopServiceImpl();
+        shop = new Shop();
+        packedShop = new Shop();
+
+        productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Milk", BigDecimal.valueOf(2.99), Category.FOOD, 7));
+        productCatalog.getProductCatalog().put("BEANS", new NonPerishableProduct("BEANS", "Beans", BigDecimal.valueOf(0.99), Category.FOOD));
+    }
+
+    @Test
+    void testStockOperationsMatchHeapBackedService_INTEGRATION() {
+        for (ShopServiceImpl service : List.of(shopServiceImpl, packedShopServiceImpl)) {
+            Shop target = service == shopServiceImpl ? shop : packedShop;
+            service.addProduct(target, "MILK", 10, TODAY.minusDays(20));
+            service.addProduct(target, "MILK", 5, TODAY.minusDays(2));
+            service.addProduct(target, "MILK", 7, TODAY);
+            service.processDelivery(target, new Delivery(Map.of("BEANS", new Batch(TODAY.minusDays(400), 30))));
+
+            BulkDelivery delivery = new BulkDelivery();
+            delivery.getProducts().put("BEANS", List.of(new Batch(TODAY, 4), new Batch(TODAY.minusDays(1), 6), new Batch(TODAY, 1)));
+            delivery.getProducts().put("BREAD", List.of(new Batch(TODAY, 3)));
+            service.processBulkDelivery(target, delivery);
+
+            service.clearExpiredFoods(target, productCatalog);
+            service.removeProduct(target, "BEANS", 31);
+            List<Batch> reserved = service.reserveProduct(target, "MILK", 6);
+            service.releaseProduct(target, "MILK", reserved.subList(1, reserved.size()));
+            assertThrows(OutOfStockException.class, () -> service.removeProduct(target, "BREAD", 4));
+            assertThrows(ProductNotFoundException.class, () -> service.removeProduct(target, "CHEESE", 1));
+        }
+
+        assertEquals(sorted(shop.getStockBatches()), sorted(packedShopServiceImpl.getStockBatches(packedShop)));
+        assertTrue(packedShop.getStockBatches().isEmpty());
+        for (String productId : List.of("MILK", "BEANS", "BREAD")) {
+            assertEquals(shopServiceImpl.getProductQuantity(shop, productId), packedShopServiceImpl.getProductQuantity(packedShop, productId));
+        }
+        assertEquals(7, packedShopServiceImpl.getProductQuantity(packedShop, "MILK"));
+        assertEquals(10, packedShopServiceImpl.getProductQuantity(packedShop, "BEANS"));
+    }
+
+    @Test
+    void testReserveTakesOldestBatchesFirstAndSplitsTheLastOne_INTEGRATION() {
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 5, TODAY);
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 4, TODAY.minusDays(3));
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 3, TODAY.minusDays(1));
+
+        List<Batch> reserved = packedShopServiceImpl.reserveProduct(packedShop, "MILK", 9);
+
+        assertEquals(List.of("Batch{arrivalDate=" + TODAY.minusDays(3) + ", quantity=4}",
+                "Batch{arrivalDate=" + TODAY.minusDays(1) + ", quantity=3}",
+                "Batch{arrivalDate=" + TODAY + ", quantity=2}"), reserved.stream().map(Batch::toString).toList());
+        assertEquals(3, packedShopServiceImpl.getProductQuantity(packedShop, "MILK"));
+        assertEquals(TODAY, packedShopServiceImpl.getStockBatches(packedShop).get("MILK").peek().getArrivalDate());
+    }
+
+    @Test
+    void testFailedRemovalLeavesStockUntouched_INTEGRATION() {
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 5, TODAY);
+        packedShopServiceImpl.reserveProduct(packedShop, "MILK", 5);
+
+        assertThrows(ProductNotFoundException.class, () -> packedShopServiceImpl.getProductQuantity(packedShop, "MILK"));
+        assertThrows(ProductNotFoundException.class, () -> packedShopServiceImpl.removeProduct(packedShop, "MILK", 1));
+
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 2, TODAY);
+        assertThrows(OutOfStockException.class, () -> packedShopServiceImpl.removeProduct(packedShop, "MILK", 3));
+        assertEquals(2, packedShopServiceImpl.getProductQuantity(packedShop, "MILK"));
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell_INTEGRATION() {
+        packedShopServiceImpl.addProduct(packedShop, "BEANS", 500, TODAY.minusDays(1));
+        packedShopServiceImpl.addProduct(packedShop, "BEANS", 500, TODAY);
+
+        long reserved = IntStream.range(0, 2000).parallel().mapToLong(i -> {
+            try {
+                return packedShopServiceImpl.reserveProduct(packedShop, "BEANS", 1).size();
+            } catch (OutOfStockException | ProductNotFoundException e) {
+                return 0;
+            }
+        }).sum();
+
+        assertEquals(1000, reserved);
+        assertThrows(ProductNotFoundException.class, () -> packedShopServiceImpl.getProductQuantity(packedShop, "BEANS"));
+    }
+
+    @Test
+    void testCheckoutAndStockEventsWorkWithPackedStock_INTEGRATION() {
+        List<StockEvent> events = new ArrayList<>();
+        packedShopServiceImpl.addStockListener((changedShop, event) -> events.add(event));
+        packedShopServiceImpl.addProduct(packedShop, "MILK", 5, TODAY);
+
+        Customer customer = new Customer(BigDecimal.ONE, new Basket());
+        new CustomerServiceImpl().addProductToBasket(customer, packedShop, "MILK", 2, packedShopServiceImpl);
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C001", "John Doe", BigDecimal.valueOf(2000)));
+        packedShop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        packedShop.setDiscountPercentage(BigDecimal.valueOf(0.20));
+
+        CashierDeskServiceImpl cashierDeskServiceImpl = new CashierDeskServiceImpl(packedShopServiceImpl, new ReceiptStore(receipts));
+        assertThrows(RuntimeException.class, () -> cashierDeskServiceImpl.processPurchase(
+                packedShop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk));
+
+        assertEquals(5, packedShopServiceImpl.getProductQuantity(packedShop, "MILK"));
+        assertEquals(List.of(StockEventType.ADDED, StockEventType.RESERVED, StockEventType.RELEASED),
+                events.stream().map(StockEvent::getType).toList());
+    }
+
+    private static Map<String, List<String>> sorted(Map<String, PriorityQueue<Batch>> stockBatches) {
+        Map<String, List<String>> sorted = new TreeMap<>();
+        stockBatches.forEach((productId, batches) -> sorted.put(productId, batches.stream()
+                .sorted(Comparator.comparing(Batch::getArrivalDate).thenComparing(Batch::getQuantity))
+                .map(Batch::toString)
+                .toList()));
+        return sorted;
+    }
+}
@@ -0,0 +1,35 @@
+package com.shop.service;
+
+import com.shop.model.Category;
+import com.shop.model.NonPerishableProduct;
+import com.shop.model.Shop;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIndexTestUnit {
+
+    @Test
+    void testShopsWithDifferentMarkupsKeepTheirOwnEntries_UNIT() {
+        PriceIndex priceIndex = new PriceIndex();
+        NonPerishableProduct soap = new NonPerishableProduct("SOAP", "Soap", new BigDecimal("10.00"), Category.NON_FOOD);
+        Shop cheap = shop(new BigDecimal("0.10"));
+        Shop dear = shop(new BigDecimal("0.50"));
+
+        PriceIndex.Entry cheapEntry = priceIndex.get(cheap, "SOAP", soap);
+        PriceIndex.Entry dearEntry = priceIndex.get(dear, "SOAP", soap);
+
+        assertEquals(new BigDecimal("11.00"), cheapEntry.regularPrice());
+        assertEquals(new BigDecimal("15.00"), dearEntry.regularPrice());
+        assertSame(cheapEntry, priceIndex.get(cheap, "SOAP", soap));
+        assertSame(dearEntry, priceIndex.get(dear, "SOAP", soap));
+    }
+
+    private static Shop shop(BigDecimal markup) {
+        Shop shop = new Shop();
+        shop.getMarkupPercentage().put(Category.NON_FOOD, markup);
+        return shop;
+    }
+}
@@ -0,0 +1,96 @@
+package com.shop.service;
+
+import com.shop.model.Receipt;
+import com.shop.model.ReceiptLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptCodecTestUnit {
+
+    @Test
+    void testDecodeReturnsEncodedReceipt_UNIT() {
+        Receipt receipt = sampleReceipt();
+
+        Receipt decoded = ReceiptCodec.decode(ReceiptCodec.encode(receipt));
+
+        assertReceiptEquals(receipt, decoded);
+    }
+
+    @Test
+    void testDecodeHandlesMissingFieldsAndUnusualValues_UNIT() {
+        Receipt empty = new Receipt();
+        assertReceiptEquals(empty, ReceiptCodec.decode(ReceiptCodec.encode(empty)));
+
+        Receipt unusual = new Receipt("not-a-uuid", "Jöhn Dœ", LocalDate.of(1969, 12, 31), new HashMap<>(),
+                new BigDecimal("123456789012345678901234567890.123"));
+        assertReceiptEquals(unusual, ReceiptCodec.decode(ReceiptCodec.encode(unusual)));
+
+        Receipt negativeScale = new Receipt(UUID.randomUUID().toString().toUpperCase(), "Jane", LocalDate.of(2023, 5, 15),
+                Map.of("MILK", -1), new BigDecimal("4E+3"), List.of(new ReceiptLine("MILK", -1, new BigDecimal("-4E+3"))));
+        assertReceiptEquals(negativeScale, ReceiptCodec.decode(ReceiptCodec.encode(negativeScale)));
+    }
+
+    @Test
+    void testEncodedReceiptIsSmallerThanJavaSerialization_UNIT() throws Exception {
+        Receipt receipt = sampleReceipt();
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+            oos.writeObject(receipt);
+        }
+
+        assertTrue(ReceiptCodec.encode(receipt).length * 4 < serialized.size());
+        assertFalse(ReceiptCodec.isEncoded(serialized.toByteArray()));
+    }
+
+    @Test
+    void testReceiptStoreLoadsLegacySerializedReceipts_UNIT(@TempDir Path directory) throws Exception {
+        Receipt receipt = sampleReceipt();
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(directory.resolve(receipt.getId() + ".ser")))) {
+            oos.writeObject(receipt);
+        }
+
+        try (ReceiptStore receiptStore = new ReceiptStore(directory)) {
+            assertReceiptEquals(receipt, receiptStore.load(receipt.getId()));
+
+            Receipt encoded = sampleReceipt();
+            receiptStore.save(encoded);
+            assertReceiptEquals(encoded, receiptStore.load(encoded.getId()));
+        }
+    }
+
+    private static Receipt sampleReceipt() {
+        Map<String, Integer> items = new HashMap<>();
+        items.put("MILK", 2);
+        items.put("BREAD", 1);
+        items.put("BEANS", 12);
+        List<ReceiptLine> lines = List.of(
+                new ReceiptLine("MILK", 1, new BigDecimal("3.29")),
+                new ReceiptLine("MILK", 1, new BigDecimal("2.63")),
+                new ReceiptLine("BREAD", 1, new BigDecimal("2.19")),
+                new ReceiptLine("BEANS", 12, new BigDecimal("0.61")));
+        return new Receipt(UUID.randomUUID().toString(), "John Doe", LocalDate.of(2023, 5, 15), items, new BigDecimal("15.43"), lines);
+    }
+
+    private static void assertReceiptEquals(Receipt expected, Receipt actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getCashierName(), actual.getCashierName());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getItems(), actual.getItems());
+        assertEquals(expected.getTotal(), actual.getTotal());
+        assertEquals(String.valueOf(expected.getLines()), String.valueOf(actual.getLines()));
+    }
+}
@@ -0,0 +1,159 @@
+package com.shop.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptJournalTestIntegration {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadReturnsAppendedPayload_INTEGRATION() {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+            journal.append("R1", bytes("first"));
+            journal.append("R2", bytes("second"));
+
+            assertEquals("first", string(journal.read("R1")));
+            assertEquals("second", string(journal.read("R2")));
+            assertNull(journal.read("R3"));
+        }
+    }
+
+    @Test
+    void testAppendRollsOverToNewSegmentBySize_INTEGRATION() throws Exception {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 256)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append("R" + i, bytes("payload-" + i));
+            }
+            assertEquals("payload-0", string(journal.read("R0")));
+            assertEquals("payload-49", string(journal.read("R49")));
+        }
+
+        List<Path> segments = segments();
+        assertTrue(segments.size() > 1);
+        for (Path segment : segments) {
+            assertTrue(Files.size(segment) <= 256);
+        }
+    }
+
+    @Test
+    void testReopenRebuildsIndexFromSegments_INTEGRATION() {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 256)) {
+            for (int i = 0; i < 50; i++) {
+                journal.append("R" + i, bytes("payload-" + i));
+            }
+        }
+
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 256)) {
+            assertEquals(50, journal.size());
+            assertEquals("payload-17", string(journal.read("R17")));
+
+            journal.append("R50", bytes("payload-50"));
+            assertEquals("payload-50", string(journal.read("R50")));
+        }
+    }
+
+    @Test
+    void testReopenDropsRecordCutShortAtEndOfLastSegment_INTEGRATION() throws Exception {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+            journal.append("R1", bytes("first"));
+            journal.append("R2", bytes("second"));
+        }
+
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+            assertEquals(1, journal.size());
+            assertEquals("first", string(journal.read("R1")));
+            assertNull(journal.read("R2"));
+
+            journal.append("R3", bytes("third"));
+            assertEquals("third", string(journal.read("R3")));
+        }
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testScanStreamsRecordsInOrderAndResumesFromReturnedPosition_INTEGRATION() {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 256)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append("R" + i, bytes("payload-" + i));
+            }
+
+            List<String> scanned = new ArrayList<>();
+            Map<Integer, Long> positions = new HashMap<>();
+            for (int segment : journal.segmentNumbers()) {
+                positions.put(segment, journal.scan(segment, 0, journal.segmentEnd(segment),
+                        (receiptId, payload) -> scanned.add(receiptId + "=" + string(payload))));
+            }
+            assertTrue(journal.segmentNumbers().size() > 1);
+            assertEquals(20, scanned.size());
+            assertEquals("R0=payload-0", scanned.get(0));
+            assertEquals("R19=payload-19", scanned.get(19));
+
+            journal.append("R20", bytes("payload-20"));
+            scanned.clear();
+            for (int segment : journal.segmentNumbers()) {
+                journal.scan(segment, positions.getOrDefault(segment, 0L), journal.segmentEnd(segment),
+                        (receiptId, payload) -> scanned.add(receiptId));
+            }
+            assertEquals(List.of("R20"), scanned);
+        }
+    }
+
+    @Test
+    void testInterruptedCallersDoNotBreakTheJournal_INTEGRATION() {
+        try (ReceiptJournal journal = new ReceiptJournal(directory, 1024)) {
+            journal.append("R1", bytes("first"));
+
+            Thread.currentThread().interrupt();
+            try {
+                journal.append("R2", bytes("second"));
+                journal.force();
+                assertThrows(RuntimeException.class, () -> journal.read("R1"));
+            } finally {
+                Thread.interrupted();
+            }
+
+            journal.append("R3", bytes("third"));
+            assertEquals("first", string(journal.read("R1")));
+            assertEquals("second", string(journal.read("R2")));
+            assertEquals("third", string(journal.read("R3")));
+        }
+
+        try (ReceiptJournal reopened = new ReceiptJournal(directory, 1024)) {
+            assertEquals(3, reopened.size());
+            assertEquals("second", string(reopened.read("R2")));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.shop.service;
+
+import com.shop.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptTextRendererTestUnit {
+
+    @Test
+    void testRenderUsesCatalogNamesAndSellingPrices_UNIT() {
+        ProductCatalog productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Milk", new BigDecimal("2.99"), Category.FOOD, 7));
+        productCatalog.getProductCatalog().put("SOAP", new NonPerishableProduct("SOAP", "Savon de Marseille é", new BigDecimal("4.50"), Category.NON_FOOD));
+
+        Map<String, Integer> items = new LinkedHashMap<>();
+        items.put("MILK", 2);
+        items.put("SOAP", 12);
+        items.put("GONE", 1);
+        List<ReceiptLine> lines = List.of(
+                new ReceiptLine("MILK", 1, new BigDecimal("3.29")),
+                new ReceiptLine("MILK", 1, new BigDecimal("2.63")),
+                new ReceiptLine("SOAP", 12, new BigDecimal("5.40")),
+                new ReceiptLine("GONE", 1, new BigDecimal("0.99")));
+        Receipt receipt = new Receipt(UUID.randomUUID().toString(), "Jöhn 😀", LocalDate.of(2023, 5, 7), items,
+                new BigDecimal("71.71"), lines);
+
+        String text = render(new ReceiptTextRenderer(), receipt, productCatalog);
+
+        assertEquals("Receipt\n" +
+                "========\n" +
+                "Cashier: Jöhn 😀\n" +
+                "Date: 2023-05-07\n" +
+                "Items:\n" +
+                "- Milk x 1 @ 3.29 each\n" +
+                "- Milk x 1 @ 2.63 each\n" +
+                "- Savon de Marseille é x 12 @ 5.40 each\n" +
+                "- GONE x 1 @ 0.99 each\n" +
+                "\n" +
+                "Total: $71.71\n" +
+                "========\n", text);
+    }
+
+    @Test
+    void testRenderReusesAndGrowsBuffer_UNIT() {
+        ReceiptTextRenderer renderer = new ReceiptTextRenderer();
+        ProductCatalog productCatalog = new ProductCatalog();
+
+        Map<String, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            items.put("PRODUCT-" + i, Integer.MIN_VALUE + i);
+        }
+        Receipt large = new Receipt("id", "Jane", LocalDate.of(2023, 5, 15), items, BigDecimal.ONE);
+        Receipt small = new Receipt("id", "Jane", LocalDate.of(2023, 5, 15), Map.of("MILK", 1), BigDecimal.ONE);
+
+        String largeText = render(renderer, large, productCatalog);
+        assertTrue(largeText.contains("- PRODUCT-0 x -2147483648\n"));
+        assertTrue(largeText.endsWith("- PRODUCT-999 x -2147482649\n\nTotal: $1\n========\n"));
+
+        assertEquals(render(new ReceiptTextRenderer(), small, productCatalog), render(renderer, small, productCatalog));
+    }
+
+    @Test
+    void testReceiptStoreWritesRenderedText_UNIT(@TempDir Path directory) throws Exception {
+        ProductCatalog productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Milk", new BigDecimal("2.99"), Category.FOOD, 7));
+        Receipt receipt = new Receipt("abcd-1234", "John", LocalDate.of(2023, 5, 15), Map.of("MILK", 3), new BigDecimal("9.87"),
+                List.of(new ReceiptLine("MILK", 3, new BigDecimal("3.29"))));
+
+        try (ReceiptStore receiptStore = new ReceiptStore(directory)) {
+            receiptStore.saveAsText(receipt, "John", productCatalog);
+            receiptStore.saveAsText(receipt, "John", productCatalog);
+        }
+
+        String text = Files.readString(directory.resolve("John_abcd_20230515.txt"));
+        assertEquals(render(new ReceiptTextRenderer(), receipt, productCatalog), text);
+        assertTrue(text.contains("- Milk x 3 @ 3.29 each\n"));
+    }
+
+    private static String render(ReceiptTextRenderer renderer, Receipt receipt, ProductCatalog productCatalog) {
+        ByteBuffer rendered = renderer.render(receipt, productCatalog);
+        byte[] bytes = new byte[rendered.remaining()];
+        rendered.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
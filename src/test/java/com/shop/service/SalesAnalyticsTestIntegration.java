@@ -0,0 +1,98 @@
+package com.shop.service;
+
+import com.shop.model.Cashier;
+import com.shop.model.CashierDesk;
+import com.shop.model.Receipt;
+import com.shop.model.SalesReport;
+import com.shop.model.Shop;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesAnalyticsTestIntegration {
+    private static final LocalDate MONDAY = LocalDate.of(2023, 5, 15);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGetReportGroupsReceiptsInDateRange_INTEGRATION() {
+        try (ReceiptStore receiptStore = new ReceiptStore(directory, 512)) {
+            receiptStore.save(receipt("Anna", MONDAY, Map.of("MILK", 2, "BREAD", 1), "5.50"));
+            receiptStore.save(receipt("Ben", MONDAY, Map.of("MILK", 1), "2.00"));
+            receiptStore.save(receipt("Anna", MONDAY.plusDays(1), Map.of("BREAD", 3), "4.50"));
+            receiptStore.save(receipt("Ben", MONDAY.plusDays(5), Map.of("MILK", 10), "20.00"));
+            receiptStore.save(receipt("Ben", null, Map.of("MILK", 10), "20.00"));
+
+            SalesReport report = new SalesAnalytics(receiptStore).getReport(MONDAY, MONDAY.plusDays(1));
+
+            assertEquals(3, report.getReceiptCount());
+            assertEquals(new BigDecimal("12.00"), report.getRevenue());
+            assertEquals(Map.of(MONDAY, new BigDecimal("7.50"), MONDAY.plusDays(1), new BigDecimal("4.50")), report.getRevenueByDate());
+            assertEquals(Map.of("MILK", 3L, "BREAD", 4L), report.getUnitsByProduct());
+            assertEquals(Map.of("Anna", new BigDecimal("10.00"), "Ben", new BigDecimal("2.00")), report.getRevenueByCashier());
+        }
+    }
+
+    @Test
+    void testReportsIncludeReceiptsSavedAfterEarlierReports_INTEGRATION() throws Exception {
+        try (ReceiptStore receiptStore = new ReceiptStore(directory, 256)) {
+            SalesAnalytics salesAnalytics = new SalesAnalytics(receiptStore);
+            for (int i = 0; i < 20; i++) {
+                receiptStore.save(receipt("Anna", MONDAY, Map.of("MILK", 1), "1.00"));
+            }
+            assertEquals(new BigDecimal("20.00"), salesAnalytics.getRevenue(MONDAY, MONDAY));
+            assertEquals(new BigDecimal("20.00"), salesAnalytics.getRevenue(MONDAY, MONDAY));
+
+            Receipt legacy = receipt("Ben", MONDAY, Map.of("BREAD", 2), "3.00");
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+                oos.writeObject(legacy);
+            }
+            receiptStore.getJournal().append(legacy.getId(), serialized.toByteArray());
+            receiptStore.save(receipt("Anna", MONDAY, Map.of("MILK", 1), "1.00"));
+
+            SalesReport report = salesAnalytics.getReport(MONDAY, MONDAY);
+            assertEquals(22, report.getReceiptCount());
+            assertEquals(new BigDecimal("24.00"), report.getRevenue());
+            assertEquals(Map.of("MILK", 21L, "BREAD", 2L), report.getUnitsByProduct());
+        }
+
+        try (ReceiptStore reopened = new ReceiptStore(directory, 256)) {
+            assertEquals(new BigDecimal("24.00"), new SalesAnalytics(reopened).getRevenue(MONDAY.minusDays(1), MONDAY));
+        }
+    }
+
+    @Test
+    void testGetProfitTakesIncomeFromStoredReceipts_INTEGRATION() {
+        Shop shop = new Shop();
+        Cashier cashier = new Cashier();
+        cashier.setSalary(new BigDecimal("100.00"));
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(cashier);
+        shop.getCashierDesks().add(cashierDesk);
+
+        try (ReceiptStore receiptStore = new ReceiptStore(directory)) {
+            receiptStore.save(receipt("Anna", MONDAY, Map.of("MILK", 100), "250.00"));
+            receiptStore.save(receipt("Anna", MONDAY.plusDays(40), Map.of("MILK", 100), "999.00"));
+
+            BigDecimal profit = new ShopServiceImpl().getProfit(shop, new SalesAnalytics(receiptStore),
+                    MONDAY.withDayOfMonth(1), MONDAY.withDayOfMonth(31), new BigDecimal("50.00"));
+
+            assertEquals(new BigDecimal("100.00"), profit);
+        }
+    }
+
+    private static Receipt receipt(String cashierName, LocalDate date, Map<String, Integer> items, String total) {
+        return new Receipt(UUID.randomUUID().toString(), cashierName, date, items, new BigDecimal(total));
+    }
+}
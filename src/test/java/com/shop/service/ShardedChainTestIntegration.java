@@ -0,0 +1,149 @@
+package com.shop.service;
+
+import com.shop.exception.OutOfStockException;
+import com.shop.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedChainTestIntegration {
+    private ShopServiceImpl shopServiceImpl;
+    private ShardedChain chain;
+    private List<Shop> shops;
+
+    @BeforeEach
+    public void setUp() {
+        shopServiceImpl = new ShopServiceImpl();
+        chain = new ShardedChain(shopServiceImpl, 3);
+        shops = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Shop shop = new Shop();
+            shop.setName("Shop " + i);
+            shop.getCashierDesks().add(new CashierDesk(new Cashier("C" + i, "Cashier " + i, new BigDecimal("1000.00")), new ArrayDeque<>()));
+            shops.add(shop);
+            chain.addShop(shop);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        chain.close();
+    }
+
+    @Test
+    void testShopsAreSpreadEvenlyOverShards_INTEGRATION() {
+        int[] shopsPerShard = new int[chain.getShardCount()];
+        for (Shop shop : shops) {
+            shopsPerShard[chain.getShard(shop)]++;
+        }
+
+        assertArrayEquals(new int[]{2, 2, 2}, shopsPerShard);
+        assertEquals(chain.getShard(shops.get(0)), chain.addShop(shops.get(0)));
+    }
+
+    @Test
+    void testChainWideQueriesGatherEveryShard_INTEGRATION() {
+        for (int i = 0; i < shops.size(); i++) {
+            chain.addProduct(shops.get(i), "MILK", i + 1, LocalDate.now()).join();
+        }
+        chain.addProduct(shops.get(4), "BREAD", 5, LocalDate.now()).join();
+
+        assertEquals(21, chain.getTotalQuantity("MILK"));
+        assertEquals(0, chain.getTotalQuantity("CHEESE"));
+        assertEquals(Map.of("MILK", 21, "BREAD", 5, "CHEESE", 0), chain.getTotalQuantities(List.of("MILK", "BREAD", "CHEESE")));
+        assertEquals(new BigDecimal("6000.00"), chain.calculateCashierSalaries());
+    }
+
+    @Test
+    void testTransferStockMovesOldestBatchesBetweenShards_INTEGRATION() {
+        Shop from = shops.get(0);
+        Shop to = shops.get(1);
+        assertNotEquals(chain.getShard(from), chain.getShard(to));
+        LocalDate old = LocalDate.now().minusDays(3);
+        chain.addProduct(from, "MILK", 4, old).join();
+        chain.addProduct(from, "MILK", 10, LocalDate.now()).join();
+
+        chain.transferStock(from, to, "MILK", 6).join();
+
+        assertEquals(8, chain.getProductQuantity(from, "MILK").join());
+        assertEquals(6, chain.getProductQuantity(to, "MILK").join());
+        List<Batch> moved = new ArrayList<>(to.getStockBatches().get("MILK"));
+        moved.sort(Comparator.naturalOrder());
+        assertEquals(old, moved.get(0).getArrivalDate());
+        assertEquals(4, moved.get(0).getQuantity());
+        assertEquals(14, chain.getTotalQuantity("MILK"));
+    }
+
+    @Test
+    void testFailedTransferLeavesBothShopsUnchanged_INTEGRATION() {
+        chain.addProduct(shops.get(0), "MILK", 4, LocalDate.now()).join();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> chain.transferStock(shops.get(0), shops.get(1), "MILK", 5).join());
+
+        assertInstanceOf(OutOfStockException.class, e.getCause());
+        assertEquals(4, chain.getProductQuantity(shops.get(0), "MILK").join());
+        assertEquals(0, chain.getProductQuantity(shops.get(1), "MILK").join());
+    }
+
+    @Test
+    void testTransferThatCannotReachTheTargetPutsStockBackIntoTheSource_INTEGRATION() {
+        Shop from = shops.get(0);
+        Shop to = shops.get(1);
+        ShopServiceImpl failingService = new ShopServiceImpl() {
+            @Override
+            public void releaseProduct(Shop shop, String productId, Collection<Batch> batches) {
+                if (shop == to) throw new IllegalStateException("Target shop is closed");
+                super.releaseProduct(shop, productId, batches);
+            }
+        };
+        LocalDate old = LocalDate.now().minusDays(3);
+        try (ShardedChain failingChain = new ShardedChain(failingService, 3)) {
+            shops.forEach(failingChain::addShop);
+            failingChain.addProduct(from, "MILK", 4, old).join();
+            failingChain.addProduct(from, "MILK", 10, LocalDate.now()).join();
+
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> failingChain.transferStock(from, to, "MILK", 6).join());
+
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals(14, failingChain.getProductQuantity(from, "MILK").join());
+            assertEquals(0, failingChain.getProductQuantity(to, "MILK").join());
+            List<Batch> restored = new ArrayList<>(from.getStockBatches().get("MILK"));
+            restored.sort(Comparator.naturalOrder());
+            assertEquals(old, restored.get(0).getArrivalDate());
+        }
+    }
+
+    @Test
+    void testStockChangesRunOnTheOwningShardOnly_INTEGRATION() {
+        Map<Shop, Set<String>> threadsByShop = new ConcurrentHashMap<>();
+        shopServiceImpl.addStockListener((shop, event) -> threadsByShop
+                .computeIfAbsent(shop, k -> ConcurrentHashMap.newKeySet())
+                .add(Thread.currentThread().getName()));
+
+        for (int round = 0; round < 20; round++) {
+            for (Shop shop : shops) {
+                chain.addProduct(shop, "MILK", 1, LocalDate.now());
+            }
+        }
+        assertEquals(120, chain.getTotalQuantity("MILK"));
+
+        for (Shop shop : shops) {
+            assertEquals(Set.of("shop-shard-" + chain.getShard(shop)), threadsByShop.get(shop));
+        }
+    }
+
+    @Test
+    void testUnknownShopIsRejected_INTEGRATION() {
+        assertThrows(IllegalArgumentException.class, () -> chain.addProduct(new Shop(), "MILK", 1, LocalDate.now()));
+    }
+}
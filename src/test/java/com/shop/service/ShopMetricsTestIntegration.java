@@ -0,0 +1,117 @@
+package com.shop.service;
+
+import com.shop.exception.InsufficientFundsException;
+import com.shop.exception.OutOfStockException;
+import com.shop.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShopMetricsTestIntegration {
+    private final ShopMetrics metrics = ShopMetrics.global();
+    private ShopServiceImpl shopServiceImpl;
+    private CustomerServiceImpl customerServiceImpl;
+    private Shop shop;
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        metrics.reset();
+        metrics.setEnabled(true);
+
+        shopServiceImpl = new ShopServiceImpl();
+        customerServiceImpl = new CustomerServiceImpl();
+        productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Milk", BigDecimal.valueOf(2.99), Category.FOOD, 7));
+        shop = new Shop();
+        shop.getMarkupPercentage().put(Category.FOOD, BigDecimal.valueOf(0.10));
+        shop.setDiscountPercentage(BigDecimal.valueOf(0.20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        metrics.setEnabled(false);
+        metrics.reset();
+    }
+
+    @Test
+    void testServicesRecordCheckoutOperationsAndFailures_INTEGRATION(@TempDir Path directory) {
+        LocalDate today = DateWrapper.currentDate();
+        shopServiceImpl.processDelivery(shop, new Delivery(Map.of("MILK", new Batch(today, 10))));
+        shopServiceImpl.removeProduct(shop, "MILK", 1);
+        shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+
+        Customer customer = new Customer(BigDecimal.valueOf(100), new Basket());
+        customerServiceImpl.addProductToBasket(customer, shop, "MILK", 2, shopServiceImpl);
+        assertThrows(OutOfStockException.class, () -> customerServiceImpl.addProductToBasket(customer, shop, "MILK", 100, shopServiceImpl));
+        assertThrows(OutOfStockException.class, () -> shopServiceImpl.removeProduct(shop, "MILK", 100));
+
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C001", "John Doe", BigDecimal.valueOf(2000)));
+        try (ReceiptStore receiptStore = new ReceiptStore(directory)) {
+            CashierDeskServiceImpl cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, receiptStore);
+            cashierDeskServiceImpl.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+
+            Customer poorCustomer = new Customer(BigDecimal.ONE, new Basket());
+            customerServiceImpl.addProductToBasket(poorCustomer, shop, "MILK", 5, shopServiceImpl);
+            assertThrows(InsufficientFundsException.class, () -> cashierDeskServiceImpl.processPurchase(
+                    shop, productCatalog, poorCustomer.getBasket(), poorCustomer.getBudget(), cashierDesk));
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        Map<MeteredOperation, LatencyStats> latencies = snapshot.getLatencies();
+        assertEquals(1, latencies.get(MeteredOperation.PROCESS_DELIVERY).getCount());
+        assertEquals(1, latencies.get(MeteredOperation.REMOVE_PRODUCT).getCount());
+        assertEquals(1, latencies.get(MeteredOperation.CLEAR_EXPIRED_FOODS).getCount());
+        assertEquals(2, latencies.get(MeteredOperation.ADD_PRODUCT_TO_BASKET).getCount());
+        assertEquals(2, latencies.get(MeteredOperation.GET_TOTAL_BASKET_PRICE).getCount());
+        assertEquals(1, latencies.get(MeteredOperation.PROCESS_PURCHASE).getCount());
+        assertEquals(1, latencies.get(MeteredOperation.SAVE_RECEIPT).getCount());
+        assertTrue(latencies.get(MeteredOperation.PROCESS_PURCHASE).getTotalNanos()
+                >= latencies.get(MeteredOperation.SAVE_RECEIPT).getTotalNanos());
+        assertEquals(2, snapshot.getFailures().get(MeteredFailure.OUT_OF_STOCK));
+        assertEquals(1, snapshot.getFailures().get(MeteredFailure.INSUFFICIENT_FUNDS));
+    }
+
+    @Test
+    void testAsyncReceiptWriterRecordsSavesAndFailures_INTEGRATION(@TempDir Path directory) {
+        shopServiceImpl.processDelivery(shop, new Delivery(Map.of("MILK", new Batch(DateWrapper.currentDate(), 10))));
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C001", "John Doe", BigDecimal.valueOf(2000)));
+        List<String> failing = new ArrayList<>();
+
+        try (ReceiptStore receiptStore = new ReceiptStore(directory) {
+                 @Override
+                 public void save(Receipt receipt) {
+                     if (failing.isEmpty()) {
+                         failing.add(receipt.getId());
+                         throw new RuntimeException("Error saving receipt " + receipt.getId());
+                     }
+                     super.save(receipt);
+                 }
+             };
+             AsyncReceiptWriter receiptWriter = new AsyncReceiptWriter(receiptStore, 4, 2)) {
+            CashierDeskServiceImpl cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, receiptWriter);
+            for (int i = 0; i < 3; i++) {
+                Customer customer = new Customer(BigDecimal.valueOf(100), new Basket());
+                customerServiceImpl.addProductToBasket(customer, shop, "MILK", 1, shopServiceImpl);
+                cashierDeskServiceImpl.processPurchase(shop, productCatalog, customer.getBasket(), customer.getBudget(), cashierDesk);
+            }
+            assertThrows(RuntimeException.class, receiptWriter::flush);
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getLatencies().get(MeteredOperation.SAVE_RECEIPT).getCount());
+        assertEquals(1, snapshot.getFailures().get(MeteredFailure.RECEIPT_NOT_SAVED));
+    }
+}
@@ -0,0 +1,116 @@
+package com.shop.service;
+
+import com.shop.model.LatencyStats;
+import com.shop.model.MeteredFailure;
+import com.shop.model.MeteredOperation;
+import com.shop.model.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShopMetricsTestUnit {
+
+    @Test
+    void testHistogramBucketsCoverEveryValueWithinThreePercent_UNIT() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucket(value);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(highest >= value, "value " + value);
+            assertTrue(highest - value <= value / 32, "value " + value);
+            if (bucket > 0) assertTrue(LatencyHistogram.highestValueIn(bucket - 1) < value, "value " + value);
+        }
+    }
+
+    @Test
+    void testHistogramReportsPercentilesOfRecordedLatencies_UNIT() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyStats stats = histogram.stats();
+
+        assertEquals(1000, stats.getCount());
+        assertEquals(500_500_000L, stats.getTotalNanos());
+        assertEquals(1_000_000, stats.getMaxNanos());
+        assertEquals(500_000, stats.getP50Nanos(), 500_000 / 32.0);
+        assertEquals(990_000, stats.getP99Nanos(), 990_000 / 32.0);
+        assertEquals(999_000, stats.getP999Nanos(), 999_000 / 32.0);
+
+        histogram.reset();
+        assertEquals(0, histogram.stats().getCount());
+        assertEquals(0, histogram.stats().getP99Nanos());
+    }
+
+    @Test
+    void testDisabledMetricsRecordNothing_UNIT() {
+        ShopMetrics metrics = new ShopMetrics();
+
+        long start = metrics.start();
+        metrics.stop(MeteredOperation.PROCESS_PURCHASE, start);
+        metrics.failed(MeteredFailure.OUT_OF_STOCK);
+
+        assertEquals(0, start);
+        assertEquals(0, metrics.snapshot().getLatencies().get(MeteredOperation.PROCESS_PURCHASE).getCount());
+        assertEquals(0, metrics.snapshot().getFailures().get(MeteredFailure.OUT_OF_STOCK));
+    }
+
+    @Test
+    void testEnabledMetricsRecordOperationsAndFailures_UNIT() {
+        ShopMetrics metrics = new ShopMetrics();
+        metrics.setEnabled(true);
+
+        metrics.stop(MeteredOperation.REMOVE_PRODUCT, metrics.start());
+        metrics.stop(MeteredOperation.REMOVE_PRODUCT, metrics.start());
+        metrics.failed(MeteredFailure.INSUFFICIENT_FUNDS);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getLatencies().get(MeteredOperation.REMOVE_PRODUCT).getCount());
+        assertEquals(1, snapshot.getFailures().get(MeteredFailure.INSUFFICIENT_FUNDS));
+        assertTrue(snapshot.toString().contains("REMOVE_PRODUCT: count=2"));
+        assertEquals(2L, metrics.getOperationCounts().get("REMOVE_PRODUCT"));
+
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().getLatencies().get(MeteredOperation.REMOVE_PRODUCT).getCount());
+    }
+
+    @Test
+    void testRegisterMBeanExposesMetricsOverJmx_UNIT() throws Exception {
+        ShopMetrics metrics = new ShopMetrics();
+        metrics.setEnabled(true);
+        metrics.failed(MeteredFailure.OUT_OF_STOCK);
+        ObjectName name = new ObjectName(ShopMetrics.OBJECT_NAME);
+
+        metrics.registerMBean();
+        try {
+            metrics.registerMBean();
+            assertEquals(true, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "FailureCounts"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    void testReporterPassesSnapshotsPeriodically_UNIT() throws Exception {
+        ShopMetrics metrics = new ShopMetrics();
+        BlockingQueue<MetricsSnapshot> reports = new ArrayBlockingQueue<>(100);
+
+        MetricsSnapshot snapshot;
+        try (MetricsReporter reporter = new MetricsReporter(metrics, Duration.ofMillis(10), reports::offer)) {
+            snapshot = reports.poll(10, TimeUnit.SECONDS);
+            assertNotNull(reports.poll(10, TimeUnit.SECONDS));
+        }
+        assertNotNull(snapshot);
+        assertEquals(MeteredOperation.values().length, snapshot.getLatencies().size());
+    }
+}
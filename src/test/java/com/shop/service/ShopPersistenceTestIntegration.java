@@ -0,0 +1,219 @@
+package com.shop.service;
+
+import com.shop.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShopPersistenceTestIntegration {
+    private static final LocalDate OLD = LocalDate.of(2000, 1, 1);
+    private static final LocalDate FRESH = LocalDate.now();
+
+    private ShopServiceImpl shopServiceImpl;
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        shopServiceImpl = new ShopServiceImpl();
+        productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Fresh Milk", new BigDecimal("7.99"), Category.FOOD, 7));
+        productCatalog.getProductCatalog().put("CEREAL", new NonPerishableProduct("CEREAL", "Breakfast Cereal", new BigDecimal("5.49"), Category.FOOD));
+    }
+
+    @Test
+    void testRestoreReadsBackCheckpointedShopAndCatalog_INTEGRATION(@TempDir Path directory) {
+        Shop shop = new Shop();
+        shop.setName("Corner Shop");
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("20.5"));
+        shop.setDaysBeforeExpityDiscount(3);
+        shop.setDiscountPercentage(new BigDecimal("10"));
+
+        Basket basket = new Basket();
+        shopServiceImpl.addProduct(shop, "MILK", 2, FRESH);
+        basket.getItems().put("MILK", new PriorityQueue<>(shopServiceImpl.reserveProduct(shop, "MILK", 2)));
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C1", "Ivan", new BigDecimal("1500.00")));
+        cashierDesk.getCustomers().add(new Customer(new BigDecimal("50.00"), basket));
+        shop.getCashierDesks().add(cashierDesk);
+        shop.getCashierDesks().add(new CashierDesk());
+
+        shopServiceImpl.addProduct(shop, "MILK", 10, FRESH.minusDays(1));
+        shopServiceImpl.addProduct(shop, "MILK", 5, FRESH);
+        shopServiceImpl.addProduct(shop, "CEREAL", 8, FRESH);
+
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            persistence.checkpoint(shop, productCatalog);
+            assertEquals(0, persistence.getLogSize());
+        }
+
+        ShopServiceImpl restartedService = new ShopServiceImpl();
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            ShopPersistence.Restored restored = persistence.restore(restartedService);
+            Shop restoredShop = restored.shop();
+
+            assertEquals("Corner Shop", restoredShop.getName());
+            assertEquals(new BigDecimal("20.5"), restoredShop.getMarkupPercentage().get(Category.FOOD));
+            assertEquals(3, restoredShop.getDaysBeforeExpityDiscount());
+            assertEquals(new BigDecimal("10"), restoredShop.getDiscountPercentage());
+
+            assertEquals(2, restoredShop.getCashierDesks().size());
+            CashierDesk restoredDesk = restoredShop.getCashierDesks().get(0);
+            assertEquals("Ivan", restoredDesk.getCashier().getName());
+            assertEquals(new BigDecimal("1500.00"), restoredDesk.getCashier().getSalary());
+            Customer customer = restoredDesk.getCustomers().peek();
+            assertEquals(new BigDecimal("50.00"), customer.getBudget());
+            assertEquals(2, customer.getBasket().getItems().get("MILK").peek().getQuantity());
+            assertNull(restoredShop.getCashierDesks().get(1).getCashier());
+
+            assertEquals(15, restartedService.getProductQuantity(restoredShop, "MILK"));
+            assertEquals(FRESH.minusDays(1), restoredShop.getStockBatches().get("MILK").peek().getArrivalDate());
+            assertEquals(8, restartedService.getProductQuantity(restoredShop, "CEREAL"));
+
+            Product milk = restored.productCatalog().getProductCatalog().get("MILK");
+            assertInstanceOf(PerishableProduct.class, milk);
+            assertEquals(7, ((PerishableProduct) milk).getExpirationDays());
+            assertEquals(new BigDecimal("7.99"), milk.getPrice());
+            assertInstanceOf(NonPerishableProduct.class, restored.productCatalog().getProductCatalog().get("CEREAL"));
+        }
+    }
+
+    @Test
+    void testRestoreReplaysStockChangesMadeAfterCheckpoint_INTEGRATION(@TempDir Path directory) {
+        Shop shop;
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            shop = persistence.restore(shopServiceImpl).shop();
+            shopServiceImpl.addProduct(shop, "MILK", 10, OLD);
+            shopServiceImpl.addProduct(shop, "MILK", 20, FRESH.minusDays(1));
+            shopServiceImpl.addProduct(shop, "CEREAL", 30, FRESH);
+            persistence.checkpoint(shop, productCatalog);
+
+            shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+            shopServiceImpl.removeProduct(shop, "CEREAL", 4);
+            List<Batch> reserved = shopServiceImpl.reserveProduct(shop, "MILK", 12);
+            shopServiceImpl.releaseProduct(shop, "MILK", reserved.subList(0, 1));
+            BulkDelivery delivery = new BulkDelivery();
+            delivery.getProducts().put("CEREAL", List.of(new Batch(FRESH, 6), new Batch(FRESH, 1)));
+            shopServiceImpl.processBulkDelivery(shop, delivery);
+            persistence.sync();
+            assertTrue(persistence.getLogSize() > 0);
+        }
+
+        ShopServiceImpl restartedService = new ShopServiceImpl();
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop restoredShop = persistence.restore(restartedService).shop();
+
+            for (String productId : List.of("MILK", "CEREAL")) {
+                assertEquals(shopServiceImpl.getProductQuantity(shop, productId), restartedService.getProductQuantity(restoredShop, productId));
+                assertEquals(sorted(shop, productId), sorted(restoredShop, productId));
+            }
+            assertEquals(20, restartedService.getProductQuantity(restoredShop, "MILK"));
+            assertEquals(33, restartedService.getProductQuantity(restoredShop, "CEREAL"));
+        }
+    }
+
+    @Test
+    void testRestoreLogsChangesOnlyForRestoredShop_INTEGRATION(@TempDir Path directory) {
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            persistence.restore(shopServiceImpl);
+            shopServiceImpl.addProduct(new Shop(), "MILK", 1, FRESH);
+            assertEquals(0, persistence.getLogSize());
+        }
+    }
+
+    @Test
+    void testRestoreIgnoresRecordTornByCrash_INTEGRATION(@TempDir Path directory) throws Exception {
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop shop = persistence.restore(shopServiceImpl).shop();
+            shopServiceImpl.addProduct(shop, "MILK", 3, FRESH);
+            shopServiceImpl.addProduct(shop, "MILK", 4, FRESH.plusDays(1));
+        }
+        Path log = directory.resolve("stock-00000000.log");
+        long size = Files.size(log);
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            file.setLength(size - 3);
+        }
+
+        ShopServiceImpl restartedService = new ShopServiceImpl();
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop restoredShop = persistence.restore(restartedService).shop();
+            assertEquals(3, restartedService.getProductQuantity(restoredShop, "MILK"));
+            assertTrue(persistence.getLogSize() < size - 3);
+
+            restartedService.addProduct(restoredShop, "MILK", 5, FRESH);
+        }
+
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            assertEquals(8, new ShopServiceImpl().getProductQuantity(persistence.restore(new ShopServiceImpl()).shop(), "MILK"));
+        }
+    }
+
+    @Test
+    void testCrashBeforeOldLogIsDeletedDoesNotReplayItOverTheSnapshot_INTEGRATION(@TempDir Path directory) throws Exception {
+        Path oldLog = directory.resolve("stock-00000000.log");
+        byte[] oldLogBytes;
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop shop = persistence.restore(shopServiceImpl).shop();
+            shopServiceImpl.addProduct(shop, "MILK", 5, FRESH);
+            persistence.sync();
+            oldLogBytes = Files.readAllBytes(oldLog);
+
+            persistence.checkpoint(shop, productCatalog);
+            assertFalse(Files.exists(oldLog));
+        }
+        Files.write(oldLog, oldLogBytes);
+
+        ShopServiceImpl restartedService = new ShopServiceImpl();
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop restoredShop = persistence.restore(restartedService).shop();
+            assertEquals(5, restartedService.getProductQuantity(restoredShop, "MILK"));
+            assertFalse(Files.exists(oldLog));
+        }
+    }
+
+    @Test
+    void testCrashBeforeSnapshotIsWrittenReplaysEveryLogSinceTheLastSnapshot_INTEGRATION(@TempDir Path directory) throws Exception {
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            Shop shop = persistence.restore(shopServiceImpl).shop();
+            shopServiceImpl.addProduct(shop, "MILK", 5, FRESH);
+        }
+        Files.createFile(directory.resolve("stock-00000001.log"));
+
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            ShopServiceImpl restartedService = new ShopServiceImpl();
+            Shop restoredShop = persistence.restore(restartedService).shop();
+            assertEquals(5, restartedService.getProductQuantity(restoredShop, "MILK"));
+            restartedService.addProduct(restoredShop, "MILK", 2, FRESH);
+        }
+
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            ShopServiceImpl restartedService = new ShopServiceImpl();
+            assertEquals(7, restartedService.getProductQuantity(persistence.restore(restartedService).shop(), "MILK"));
+        }
+    }
+
+    @Test
+    void testRestoreFailsForCorruptSnapshot_INTEGRATION(@TempDir Path directory) throws Exception {
+        Files.write(directory.resolve("shop.snapshot"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        try (ShopPersistence persistence = new ShopPersistence(directory)) {
+            assertThrows(RuntimeException.class, () -> persistence.restore(shopServiceImpl));
+        }
+    }
+
+    private static List<String> sorted(Shop shop, String productId) {
+        return shop.getStockBatches().get(productId).stream()
+                .sorted(Comparator.comparing(Batch::getArrivalDate).thenComparing(Batch::getQuantity))
+                .map(Batch::toString)
+                .toList();
+    }
+}
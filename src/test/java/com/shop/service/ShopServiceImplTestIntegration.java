@@ -12,6 +12,11 @@ import org.mockito.Mockito;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertFalse;
 import static org.junit.jupiter.api.Assertions.*;
@@ -218,5 +223,178 @@ public class ShopServiceImplTestIntegration {
         assertEquals(expectedPriceWithoutDiscount, priceWithoutDiscount);
         assertEquals(expectedPriceWithDiscount, priceWithDiscount);
     }
-}
 
+    @Test
+    void testRemoveProductNeverOversellsUnderConcurrentCheckouts_INTEGRATION() throws InterruptedException {
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 100; i++) {
+            executor.submit(() -> {
+                try {
+                    shopServiceImpl.removeProduct(shop, "MILK", 2);
+                    sold.incrementAndGet();
+                } catch (OutOfStockException | ProductNotFoundException ignored) {
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(12, sold.get());
+        assertEquals(1, shopServiceImpl.getProductQuantity(shop, "MILK"));
+    }
+
+    @Test
+    void testGetProductPriceFollowsPriceMarkupAndDiscountChanges_INTEGRATION() {
+        ProductCatalog catalog = new ProductCatalog();
+        catalog.getProductCatalog().put("BREAD", new PerishableProduct("BREAD", "Bread", new BigDecimal("2.00"), Category.FOOD, 3));
+
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.setDaysBeforeExpityDiscount(7);
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+
+        LocalDate farFromExpiry = DateWrapper.currentDate().plusDays(8);
+        LocalDate closeToExpiry = DateWrapper.currentDate().plusDays(6);
+
+        assertEquals(new BigDecimal("2.20"), shopServiceImpl.getProductPrice(shop, catalog, "BREAD", farFromExpiry));
+        assertEquals(new BigDecimal("1.76"), shopServiceImpl.getProductPrice(shop, catalog, "BREAD", closeToExpiry));
+
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.50"));
+        assertEquals(new BigDecimal("3.00"), shopServiceImpl.getProductPrice(shop, catalog, "BREAD", farFromExpiry));
+
+        catalog.getProductCatalog().get("BREAD").setPrice(new BigDecimal("4.00"));
+        assertEquals(new BigDecimal("6.00"), shopServiceImpl.getProductPrice(shop, catalog, "BREAD", farFromExpiry));
+
+        shop.setDiscountPercentage(new BigDecimal("0.50"));
+        assertEquals(new BigDecimal("3.00"), shopServiceImpl.getProductPrice(shop, catalog, "BREAD", closeToExpiry));
+    }
+
+    @Test
+    void testClearExpiredFoodsClearsBatchesAddedAfterPreviousSweep_INTEGRATION() {
+        try (MockedStatic<DateWrapper> mockedStatic = Mockito.mockStatic(DateWrapper.class)) {
+            LocalDate testDate = LocalDate.of(2023, 5, 15);
+            mockedStatic.when(DateWrapper::currentDate).thenReturn(testDate);
+
+            shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+
+            shopServiceImpl.addProduct(shop, "MILK", 4, testDate.minusDays(9));
+            shopServiceImpl.addProduct(shop, "YOGURT", 6, testDate);
+            shopServiceImpl.addProduct(shop, "CEREAL", 7, testDate.minusDays(400));
+            assertEquals(2, shop.getStockBatches().get("MILK").size());
+
+            mockedStatic.when(DateWrapper::currentDate).thenReturn(testDate.plusDays(2));
+            shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+
+            assertEquals(1, shop.getStockBatches().get("MILK").size());
+            assertEquals(testDate.minusDays(3), shop.getStockBatches().get("MILK").peek().getArrivalDate());
+            assertEquals(2, shop.getStockBatches().get("YOGURT").size());
+            assertEquals(2, shop.getStockBatches().get("CEREAL").size());
+
+            mockedStatic.when(DateWrapper::currentDate).thenReturn(testDate.plusDays(5));
+            shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+
+            assertTrue(shop.getStockBatches().get("MILK").isEmpty());
+            assertEquals(2, shop.getStockBatches().get("YOGURT").size());
+        }
+    }
+
+    @Test
+    void testClearExpiredFoodsClearsProductsAddedToCatalogAfterPreviousSweep_INTEGRATION() {
+        try (MockedStatic<DateWrapper> mockedStatic = Mockito.mockStatic(DateWrapper.class)) {
+            LocalDate testDate = LocalDate.of(2023, 5, 15);
+            mockedStatic.when(DateWrapper::currentDate).thenReturn(testDate);
+            shopServiceImpl.addProduct(shop, "CHEESE", 3, testDate.minusDays(20));
+
+            ProductCatalog catalog = new ProductCatalog();
+            catalog.getProductCatalog().putAll(productCatalog.getProductCatalog());
+            shopServiceImpl.clearExpiredFoods(shop, catalog);
+            assertEquals(3, shopServiceImpl.getProductQuantity(shop, "CHEESE"));
+
+            catalog.getProductCatalog().put("CHEESE", new PerishableProduct("CHEESE", "Cheese", new BigDecimal("4.99"), Category.FOOD, 10));
+            shopServiceImpl.clearExpiredFoods(shop, catalog);
+
+            assertTrue(shop.getStockBatches().get("CHEESE").isEmpty());
+        }
+    }
+
+    @Test
+    void testGetProductQuantityTracksEveryStockChange_INTEGRATION() {
+        try (MockedStatic<DateWrapper> mockedStatic = Mockito.mockStatic(DateWrapper.class)) {
+            LocalDate testDate = LocalDate.of(2023, 5, 15);
+            mockedStatic.when(DateWrapper::currentDate).thenReturn(testDate);
+
+            assertEquals(25, shopServiceImpl.getProductQuantity(shop, "MILK"));
+
+            shopServiceImpl.addProduct(shop, "MILK", 5, testDate);
+            assertEquals(30, shopServiceImpl.getProductQuantity(shop, "MILK"));
+
+            shopServiceImpl.removeProduct(shop, "MILK", 12);
+            assertEquals(18, shopServiceImpl.getProductQuantity(shop, "MILK"));
+
+            assertThrows(OutOfStockException.class, () -> shopServiceImpl.removeProduct(shop, "MILK", 19));
+            assertEquals(18, shopServiceImpl.getProductQuantity(shop, "MILK"));
+
+            Delivery delivery = new Delivery();
+            delivery.getProducts().put("MILK", new Batch(testDate.minusDays(10), 4));
+            shopServiceImpl.processDelivery(shop, delivery);
+            assertEquals(22, shopServiceImpl.getProductQuantity(shop, "MILK"));
+
+            shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+            assertEquals(15, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        }
+    }
+
+    @Test
+    void testProcessBulkDeliveryMergesSameDateBatchesInArrivalOrder_INTEGRATION() {
+        LocalDate testDate = LocalDate.of(2023, 5, 15);
+        BulkDelivery delivery = new BulkDelivery();
+        delivery.getProducts().put("MILK", new ArrayList<>(List.of(
+                new Batch(testDate, 4),
+                new Batch(testDate.minusDays(5), 2),
+                new Batch(testDate, 6),
+                new Batch(testDate.minusDays(10), 1))));
+        delivery.getProducts().put("LEGOS", List.of(new Batch(testDate, 3), new Batch(testDate, 3)));
+
+        assertEquals(25, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        shopServiceImpl.processBulkDelivery(shop, delivery);
+
+        List<Batch> milk = new ArrayList<>();
+        PriorityQueue<Batch> milkBatches = new PriorityQueue<>(shop.getStockBatches().get("MILK"));
+        while (!milkBatches.isEmpty()) milk.add(milkBatches.poll());
+
+        assertEquals(List.of(testDate.minusDays(10), testDate.minusDays(8), testDate.minusDays(5), testDate.minusDays(3), testDate),
+                milk.stream().map(Batch::getArrivalDate).toList());
+        assertEquals(List.of(1, 15, 2, 10, 10), milk.stream().map(Batch::getQuantity).toList());
+        assertEquals(38, shopServiceImpl.getProductQuantity(shop, "MILK"));
+        assertEquals(1, shop.getStockBatches().get("LEGOS").size());
+        assertEquals(6, shopServiceImpl.getProductQuantity(shop, "LEGOS"));
+        assertEquals(4, delivery.getProducts().get("MILK").get(0).getQuantity());
+
+        shopServiceImpl.removeProduct(shop, "MILK", 16);
+        assertEquals(testDate.minusDays(5), shop.getStockBatches().get("MILK").peek().getArrivalDate());
+    }
+
+    @Test
+    void testProcessBulkDeliveryStocksLargeDeliveries_INTEGRATION() {
+        shop.setStockBatches(new ConcurrentHashMap<>());
+        LocalDate testDate = LocalDate.of(2023, 5, 15);
+        BulkDelivery delivery = new BulkDelivery();
+        for (int product = 0; product < 200; product++) {
+            List<Batch> batches = new ArrayList<>();
+            for (int line = 0; line < 1000; line++) {
+                batches.add(new Batch(testDate.minusDays(line % 50), 1));
+            }
+            delivery.getProducts().put("P" + product, batches);
+        }
+
+        shopServiceImpl.processBulkDelivery(shop, delivery);
+
+        assertEquals(200, shop.getStockBatches().size());
+        for (int product = 0; product < 200; product++) {
+            assertEquals(50, shop.getStockBatches().get("P" + product).size());
+            assertEquals(1000, shopServiceImpl.getProductQuantity(shop, "P" + product));
+            assertEquals(testDate.minusDays(49), shop.getStockBatches().get("P" + product).peek().getArrivalDate());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.shop.service;
+
+import com.shop.exception.InsufficientFundsException;
+import com.shop.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerTestIntegration {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private ProductCatalog productCatalog;
+    private Shop shop;
+
+    @TempDir
+    Path receipts;
+
+    @BeforeEach
+    public void setUp() {
+        productCatalog = new ProductCatalog();
+        productCatalog.getProductCatalog().put("MILK", new PerishableProduct("MILK", "Fresh Milk", new BigDecimal("1.50"), Category.FOOD, 7));
+        productCatalog.getProductCatalog().put("SOAP", new NonPerishableProduct("SOAP", "Soap", new BigDecimal("2.25"), Category.NON_FOOD));
+
+        shop = new Shop();
+        shop.setDaysBeforeExpityDiscount(3);
+        shop.setDiscountPercentage(new BigDecimal("0.20"));
+        shop.getMarkupPercentage().put(Category.FOOD, new BigDecimal("0.10"));
+        shop.getMarkupPercentage().put(Category.NON_FOOD, new BigDecimal("0.10"));
+    }
+
+    @Test
+    void testProjectionsFollowStockChangesOnBothBackends_INTEGRATION() {
+        for (ShopServiceImpl shopServiceImpl : List.of(new ShopServiceImpl(), new PackedShopServiceImpl())) {
+            Shop shop = new Shop();
+            try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+                shopServiceImpl.addProduct(shop, "MILK", 4, TODAY.minusDays(10));
+                shopServiceImpl.addProduct(shop, "MILK", 6, TODAY.minusDays(2));
+                shopServiceImpl.addProduct(shop, "SOAP", 3, TODAY);
+                shopServiceImpl.removeProduct(shop, "MILK", 5);
+                shopServiceImpl.addProduct(shop, "MILK", 2, TODAY.minusDays(9));
+                shopServiceImpl.clearExpiredFoods(shop, productCatalog);
+
+                assertEquals(shopServiceImpl.getProductQuantity(shop, "MILK"), ledger.getQuantity("MILK"));
+                assertEquals(Map.of("MILK", 5, "SOAP", 3), ledger.getQuantities());
+                assertEquals(2, ledger.getUnitsExpired("MILK"));
+                assertEquals(new BigDecimal("7.50"), ledger.getValueAtCost("MILK"));
+                assertEquals(new BigDecimal("14.25"), ledger.getValueAtCost());
+                assertEquals(6, ledger.getEventCount());
+                assertEquals(StockEventType.EXPIRED, ledger.getEvents(5).get(0).getType());
+            }
+        }
+    }
+
+    @Test
+    void testCheckoutRecordsReservationsSalesAndReleases_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        CashierDeskServiceImpl cashierDeskServiceImpl = new CashierDeskServiceImpl(shopServiceImpl, new ReceiptStore(receipts));
+        CashierDesk cashierDesk = new CashierDesk();
+        cashierDesk.setCashier(new Cashier("C001", "John Doe", BigDecimal.valueOf(2000)));
+
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            shopServiceImpl.addProduct(shop, "SOAP", 10, TODAY);
+
+            Customer buyer = new Customer(new BigDecimal("100"), new Basket());
+            new CustomerServiceImpl().addProductToBasket(buyer, shop, "SOAP", 4, shopServiceImpl);
+            cashierDeskServiceImpl.processPurchase(shop, productCatalog, buyer.getBasket(), buyer.getBudget(), cashierDesk);
+
+            Customer broke = new Customer(BigDecimal.ONE, new Basket());
+            new CustomerServiceImpl().addProductToBasket(broke, shop, "SOAP", 3, shopServiceImpl);
+            assertThrows(InsufficientFundsException.class, () -> cashierDeskServiceImpl.processPurchase(
+                    shop, productCatalog, broke.getBasket(), broke.getBudget(), cashierDesk));
+
+            assertEquals(6, ledger.getQuantity("SOAP"));
+            assertEquals(4, ledger.getUnitsSold("SOAP"));
+            assertEquals(List.of(StockEventType.ADDED, StockEventType.RESERVED, StockEventType.SOLD,
+                            StockEventType.RESERVED, StockEventType.RELEASED),
+                    ledger.getEvents(0).stream().map(StockEvent::getType).toList());
+        }
+    }
+
+    @Test
+    void testExpiringSoonListsPerishableBatchesInsideTheDiscountWindow_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            shopServiceImpl.addProduct(shop, "MILK", 2, TODAY.minusDays(6));
+            shopServiceImpl.addProduct(shop, "MILK", 3, TODAY.minusDays(5));
+            shopServiceImpl.addProduct(shop, "MILK", 4, TODAY);
+            shopServiceImpl.addProduct(shop, "SOAP", 5, TODAY.minusDays(100));
+
+            Map<String, List<Batch>> expiring = ledger.getExpiringSoon();
+
+            assertEquals(List.of("MILK"), List.copyOf(expiring.keySet()));
+            assertEquals(2, expiring.get("MILK").size());
+            assertEquals(TODAY.minusDays(6), expiring.get("MILK").get(0).getArrivalDate());
+            assertEquals(3, expiring.get("MILK").get(1).getQuantity());
+            assertTrue(ledger.getExpiringBefore(TODAY).isEmpty());
+        }
+    }
+
+    @Test
+    void testLedgerIgnoresOtherShopsAndStopsWhenClosed_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog);
+
+        shopServiceImpl.addProduct(new Shop(), "SOAP", 5, TODAY);
+        shopServiceImpl.addProduct(shop, "SOAP", 1, TODAY);
+        ledger.close();
+        shopServiceImpl.addProduct(shop, "SOAP", 1, TODAY);
+
+        assertEquals(1, ledger.getQuantity("SOAP"));
+        assertEquals(1, ledger.getEventCount());
+        assertTrue(ledger.getEvents(5).isEmpty());
+    }
+
+    @Test
+    void testStockLeavesAtTheCostItArrivedAt_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        Product soap = productCatalog.getProductCatalog().get("SOAP");
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            shopServiceImpl.addProduct(shop, "SOAP", 2, TODAY.minusDays(1));
+            soap.setPrice(new BigDecimal("10.00"));
+            shopServiceImpl.addProduct(shop, "SOAP", 1, TODAY);
+            assertEquals(new BigDecimal("14.50"), ledger.getValueAtCost("SOAP"));
+
+            List<Batch> reserved = shopServiceImpl.reserveProduct(shop, "SOAP", 2);
+            assertEquals(new BigDecimal("10.00"), ledger.getValueAtCost("SOAP"));
+            soap.setPrice(new BigDecimal("20.00"));
+            shopServiceImpl.releaseProduct(shop, "SOAP", reserved);
+            assertEquals(new BigDecimal("14.50"), ledger.getValueAtCost("SOAP"));
+
+            shopServiceImpl.removeProduct(shop, "SOAP", 3);
+            assertEquals(0, ledger.getQuantity("SOAP"));
+            assertEquals(new BigDecimal("0.00"), ledger.getValueAtCost("SOAP"));
+            assertEquals(new BigDecimal("0.00"), ledger.getValueAtCost());
+        }
+    }
+
+    @Test
+    void testSubCentPricesAreRoundedToCents_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        productCatalog.getProductCatalog().get("SOAP").setPrice(new BigDecimal("0.125"));
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            shopServiceImpl.addProduct(shop, "SOAP", 3, TODAY);
+
+            assertEquals(3, shopServiceImpl.getProductQuantity(shop, "SOAP"));
+            assertEquals(new BigDecimal("0.39"), ledger.getValueAtCost("SOAP"));
+        }
+    }
+
+    @Test
+    void testFailingListenerNeitherFailsTheChangeNorStarvesOtherListeners_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        shopServiceImpl.addStockListener((changedShop, event) -> {
+            throw new IllegalStateException("listener failure");
+        });
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            shopServiceImpl.addProduct(shop, "SOAP", 3, TODAY);
+            shopServiceImpl.removeProduct(shop, "SOAP", 1);
+
+            assertEquals(2, shopServiceImpl.getProductQuantity(shop, "SOAP"));
+            assertEquals(2, ledger.getQuantity("SOAP"));
+        }
+    }
+
+    @Test
+    void testHistoryKeepsTheMostRecentEventsAndPagesOverThem_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog, 4)) {
+            for (int i = 1; i <= 6; i++) {
+                shopServiceImpl.addProduct(shop, "SOAP", i, TODAY);
+            }
+
+            assertEquals(6, ledger.getEventCount());
+            assertEquals(2, ledger.getOldestEventPosition());
+            assertEquals(21, ledger.getQuantity("SOAP"));
+            assertEquals(List.of(3, 4, 5, 6), ledger.getEvents(0).stream().map(StockEvent::getQuantity).toList());
+
+            StockLedger.EventPage first = ledger.getEventPage(0, 3);
+            assertEquals(2, first.from());
+            assertEquals(List.of(3, 4, 5), first.events().stream().map(StockEvent::getQuantity).toList());
+            StockLedger.EventPage second = ledger.getEventPage(first.next(), 3);
+            assertEquals(5, second.from());
+            assertEquals(List.of(6), second.events().stream().map(StockEvent::getQuantity).toList());
+            assertTrue(ledger.getEventPage(second.next(), 3).events().isEmpty());
+        }
+    }
+
+    @Test
+    void testConcurrentChangesToDifferentProductsAreAllRecorded_INTEGRATION() throws Exception {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog, 1 << 12)) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (String productId : List.of("MILK", "SOAP")) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 1000; i++) {
+                            shopServiceImpl.addProduct(shop, productId, 1, TODAY);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(2000, ledger.getEventCount());
+            assertEquals(2000, ledger.getEvents(0).size());
+            assertEquals(1000, ledger.getQuantity("MILK"));
+            assertEquals(1000, ledger.getQuantity("SOAP"));
+        }
+    }
+
+    @Test
+    void testFailingDurableListenerFailsTheChangeAfterEveryListenerSawIt_INTEGRATION() {
+        ShopServiceImpl shopServiceImpl = new ShopServiceImpl();
+        shopServiceImpl.addStockListener(new StockListener() {
+            @Override
+            public void stockChanged(Shop changedShop, StockEvent event) {
+                throw new IllegalStateException("log is full");
+            }
+
+            @Override
+            public boolean isDurable() {
+                return true;
+            }
+        });
+        try (StockLedger ledger = StockLedger.attach(shopServiceImpl, shop, productCatalog)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> shopServiceImpl.addProduct(shop, "SOAP", 3, TODAY));
+
+            assertEquals("log is full", e.getMessage());
+            assertEquals(3, ledger.getQuantity("SOAP"));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.shop.service;
+
+import com.shop.model.Shop;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeakKeyMapTestUnit {
+
+    @Test
+    void testEntriesAreKeptPerKeyInstance_UNIT() {
+        WeakKeyMap<Shop, String> map = new WeakKeyMap<>();
+        Shop first = new Shop();
+        Shop second = new Shop();
+
+        assertEquals("first", map.computeIfAbsent(first, k -> "first"));
+        assertEquals("first", map.computeIfAbsent(first, k -> "other"));
+        assertNull(map.get(second));
+        assertEquals("second!", map.compute(second, (k, current) -> current == null ? "second!" : current + "?"));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void testEntryIsDroppedOnceItsKeyIsUnreachable_UNIT() throws InterruptedException {
+        WeakKeyMap<Shop, int[]> map = new WeakKeyMap<>();
+        Shop kept = new Shop();
+        map.computeIfAbsent(kept, k -> new int[1024]);
+        map.computeIfAbsent(new Shop(), k -> new int[1024]);
+
+        for (int attempt = 0; attempt < 50 && map.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, map.size());
+        assertNotNull(map.get(kept));
+    }
+}